@@ -0,0 +1,170 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package com.northps.blur;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The characters fuzzy variants are built from. {@link #DEFAULT} is {@link Fuzzy#ALPHABET};
+ * {@link #fromTrie} derives one from a loaded dictionary instead, so small alphabets produce
+ * proportionally fewer variants and dictionaries with digits or non-Latin letters are covered.
+ *
+ * Derived symbols are ordered by decreasing frequency, so {@link #restrict} keeps the most
+ * common ones.
+ */
+public class Alphabet {
+	public static final Alphabet DEFAULT = new Alphabet(Fuzzy.ALPHABET, new int[Fuzzy.ALPHABET.length]);
+
+	private final char[] symbols;
+	private final int[] frequencies;
+	private final List<List<String>> combinations = new ArrayList<List<String>>();
+
+	public Alphabet(char[] symbols) {
+		this(symbols, new int[symbols.length]);
+	}
+
+	private Alphabet(char[] symbols, int[] frequencies) {
+		this.symbols = symbols.clone();
+		this.frequencies = frequencies.clone();
+	}
+
+	// Every character on a node of the trie, weighted by the number of nodes carrying it.
+	public static Alphabet fromTrie(TrieNode root) {
+		Map<Character, int[]> counts = new HashMap<Character, int[]>();
+		countSymbols(root, counts);
+
+		List<Map.Entry<Character, int[]>> entries = new ArrayList<Map.Entry<Character, int[]>>(counts.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<Character, int[]>>() {
+			public int compare(Map.Entry<Character, int[]> a, Map.Entry<Character, int[]> b) {
+				int byCount = b.getValue()[0] - a.getValue()[0];
+				return byCount != 0 ? byCount : a.getKey().charValue() - b.getKey().charValue();
+			}
+		});
+		char[] symbols = new char[entries.size()];
+		int[] frequencies = new int[entries.size()];
+		for (int i = 0; i < symbols.length; i++) {
+			symbols[i] = entries.get(i).getKey().charValue();
+			frequencies[i] = entries.get(i).getValue()[0];
+		}
+		return new Alphabet(symbols, frequencies);
+	}
+
+	private static void countSymbols(TrieNode node, Map<Character, int[]> counts) {
+		for (TrieNode child : node.getChildren().values()) {
+			int[] count = counts.get(child.getValue());
+			if (count == null) {
+				count = new int[1];
+				counts.put(child.getValue(), count);
+			}
+			count[0]++;
+			countSymbols(child, counts);
+		}
+	}
+
+	// The maxSize most frequent symbols.
+	public Alphabet restrict(int maxSize) {
+		int size = Math.min(maxSize, this.symbols.length);
+		return new Alphabet(Arrays.copyOf(this.symbols, size), Arrays.copyOf(this.frequencies, size));
+	}
+
+	// The symbols seen at least minFrequency times.
+	public Alphabet withMinimumFrequency(int minFrequency) {
+		int size = 0;
+		while (size < this.symbols.length && this.frequencies[size] >= minFrequency) {
+			size++;
+		}
+		return restrict(size);
+	}
+
+	public char[] getSymbols() {
+		return this.symbols.clone();
+	}
+
+	char[] symbols() {
+		return this.symbols;
+	}
+
+	public int size() {
+		return this.symbols.length;
+	}
+
+	public int getFrequency(char c) {
+		for (int i = 0; i < this.symbols.length; i++) {
+			if (this.symbols[i] == c) {
+				return this.frequencies[i];
+			}
+		}
+		return 0;
+	}
+
+	public boolean contains(char c) {
+		for (int i = 0; i < this.symbols.length; i++) {
+			if (this.symbols[i] == c) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Multisets of order symbols as strings, built on first use.
+	public synchronized List<String> getCombinations(int order) {
+		if (order < 1 || order > 3) {
+			throw new IllegalArgumentException("Supports order 1,2, or 3");
+		}
+		while (this.combinations.size() < order) {
+			this.combinations.add(null);
+		}
+		List<String> result = this.combinations.get(order - 1);
+		if (result == null) {
+			result = new ArrayList<String>();
+			addCombinations("", 0, order, result);
+			result = Collections.unmodifiableList(result);
+			this.combinations.set(order - 1, result);
+		}
+		return result;
+	}
+
+	private void addCombinations(String prefix, int from, int order, List<String> result) {
+		if (order == 0) {
+			result.add(prefix);
+			return;
+		}
+		for (int i = from; i < this.symbols.length; i++) {
+			addCombinations(prefix + this.symbols[i], i, order - 1, result);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return new String(this.symbols);
+	}
+}
@@ -35,31 +35,8 @@ public class Fuzzy {
         ' ', '-','\''
     };
 
-    public static final List<String> ALPHABET_COMBINATIONS_1 = new ArrayList();
-    public static final List<String> ALPHABET_COMBINATIONS_2 = new ArrayList();
-    public static final List<String> ALPHABET_COMBINATIONS_3 = new ArrayList();
-
-    static {
-        for (int i=0; i<ALPHABET.length; i++) {
-            ALPHABET_COMBINATIONS_1.add(String.valueOf(ALPHABET[i]));
-            for (int j=i; j<ALPHABET.length; j++) {
-                ALPHABET_COMBINATIONS_2.add(String.valueOf(ALPHABET[i]) + String.valueOf(ALPHABET[j]));
-                for (int k=j; k<ALPHABET.length; k++) {
-                    ALPHABET_COMBINATIONS_3.add(String.valueOf(ALPHABET[i]) + String.valueOf(ALPHABET[j]) + String.valueOf(ALPHABET[k]));
-                }
-            }
-        }
-    }
     public static List<String> getAlphabetCombination(int order) {
-        if (order <0 || order>3) {
-            throw new IllegalArgumentException("Supports order 1,2, or 3");
-        }
-        switch(order) {
-            case 1: return ALPHABET_COMBINATIONS_1;
-            case 2: return ALPHABET_COMBINATIONS_2;
-            case 3: return ALPHABET_COMBINATIONS_3;
-        }
-        return null;
+        return Alphabet.DEFAULT.getCombinations(order);
     }
 
     public static void main(String[] args) {
@@ -108,25 +85,247 @@ public class Fuzzy {
 
     // The following method adds distance volume in the n-dimensional alphabet space around each character
     public static List<Word> blur(int distance, String rawWord) {
-        List<Word> returnList = new ArrayList<Word>(100000);
-        String word = rawWord.toLowerCase().trim();
-
-        Set<Word> returnSet = new HashSet<Word>(100000);
-        for (int i=1; i<= distance; i++)  {
-            List<String> alphabet = getAlphabetCombination(i);
-            for (String junk: alphabet) {
-               Set<Word> result = getVariants(junk.toCharArray(), word);
-                returnSet.addAll(result);
-//                System.out.println("Adding " + result.size());
-//                System.out.println("new size after " + junk + " : " + returnSet.size());
+        return blur(distance, rawWord, false);
+    }
+
+    // As blur(distance, rawWord), also counting a swap of two adjacent characters as one edit.
+    public static List<Word> blur(int distance, String rawWord, boolean transpositions) {
+        return blur(distance, rawWord, Alphabet.DEFAULT, transpositions);
+    }
+
+    // As blur(distance, rawWord, transpositions), inserting and substituting only the symbols of alphabet.
+    public static List<Word> blur(int distance, String rawWord, Alphabet alphabet, boolean transpositions) {
+        final List<Word> returnList = new ArrayList<Word>();
+        blur(distance, rawWord, alphabet, transpositions, new VariantSink() {
+            public void accept(char[] buffer, int length, int variantDistance) {
+                returnList.add(new Word(new String(buffer, 0, length), variantDistance));
             }
-        }
-        for (Word w: returnSet) {
-            returnList.add(w);
-        }
+        });
         Collections.sort(returnList);
         return returnList;
     }
+
+    // Streams every non-empty variant within distance edits of rawWord over ALPHABET into sink.
+    // Each variant is reported once, with its edit distance from rawWord.
+    public static void blur(int distance, String rawWord, VariantSink sink) {
+        blur(distance, rawWord, false, sink);
+    }
+
+    public static void blur(int distance, String rawWord, boolean transpositions, VariantSink sink) {
+        blur(distance, rawWord, Alphabet.DEFAULT, transpositions, sink);
+    }
+
+    public static void blur(int distance, String rawWord, Alphabet alphabet, boolean transpositions, VariantSink sink) {
+        char[] word = rawWord.toLowerCase().trim().toCharArray();
+        new VariantGenerator(word, alphabet.symbols(), false, transpositions, distance, sink).generate(0, 0, OP_KEEP, 0, 0);
+    }
+
+    // Streams every non-empty variant within altChars.length edits of wordString into sink, each
+    // inserted or substituted character being drawn from altChars at most once. A variant that
+    // several scripts spell is reported for each of them.
+    public static void getVariants(char[] altChars, String wordString, VariantSink sink) {
+        if (altChars.length > 31) {
+            throw new IllegalArgumentException("This method supports at most 31 alternative characters.");
+        }
+        char[] word = wordString.toCharArray();
+        new VariantGenerator(word, altChars, true, false, altChars.length, sink).generate(0, 0, OP_KEEP, 0, 0);
+    }
+
+    // Lazily yields the variants within distance edits of rawWord, closest first. Unlike blur this
+    // supports any distance, since nothing is enumerated until the caller asks for it.
+    public static Iterator<Word> variants(int distance, String rawWord) {
+        return new VariantIterator(distance, rawWord);
+    }
+
+    public static Iterator<Word> variants(int distance, String rawWord, Alphabet alphabet) {
+        return new VariantIterator(distance, rawWord, alphabet.symbols());
+    }
+
+    public static Spliterator<Word> variantSpliterator(int distance, String rawWord) {
+        return Spliterators.spliteratorUnknownSize(new VariantIterator(distance, rawWord),
+                Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    // Edit operations, recorded per edit so a script can be checked against the traceback.
+    private static final int OP_KEEP = 0;
+    private static final int OP_INSERT = 1;
+    private static final int OP_DELETE = 2;
+    private static final int OP_SUBSTITUTE = 3;
+    private static final int OP_TRANSPOSE = 4;
+
+    /*
+     * Walks the word left to right choosing keep, insert, delete or substitute at each position,
+     * so every edit script is enumerated once in positional order. Several scripts can still
+     * spell one variant (deleting b then substituting c by a, or substituting b by a then
+     * deleting c, both turn abc into aa), so as in VariantIterator a variant is only reported
+     * from the script that matches one fixed traceback of its edit distance table. The table
+     * gains a row per generated character, which also cuts a branch as soon as its prefix has a
+     * cheaper alignment. Scripts that are never the traceback are not generated at all:
+     *   - insert then delete, or delete then insert, is a substitution
+     *   - inserting c after a kept c, or deleting a c after a kept c, is matched by the traceback
+     * With transpositions, swapping two different adjacent characters is one more edit; the
+     * swapped pair is not edited again, as in optimal string alignment.
+     *
+     * getVariants draws each alternative character at most once, which the traceback's script
+     * may not, so in that mode every script is streamed and no table is kept.
+     */
+    private static final class VariantGenerator {
+        private final char[] word;
+        private final char[] alphabet;
+        private final boolean useOnce;
+        private final boolean transpositions;
+        private final int maxEdits;
+        private final VariantSink sink;
+        private final char[] scratch;
+        // table[j][i] is the edit distance between the first i characters of the word and the
+        // first j of the variant, or null when scripts are not checked against the traceback.
+        private final int[][] table;
+        // Edit t is kinds[t] at word position positions[t], made when the variant had lengths[t] characters.
+        private final int[] kinds;
+        private final int[] positions;
+        private final int[] lengths;
+
+        VariantGenerator(char[] word, char[] alphabet, boolean useOnce, boolean transpositions,
+                         int maxEdits, VariantSink sink) {
+            this.word = word;
+            this.alphabet = alphabet;
+            this.useOnce = useOnce;
+            this.transpositions = transpositions;
+            this.maxEdits = maxEdits;
+            this.sink = sink;
+            this.scratch = new char[word.length + maxEdits];
+            this.kinds = new int[maxEdits];
+            this.positions = new int[maxEdits];
+            this.lengths = new int[maxEdits];
+            if (useOnce) {
+                this.table = null;
+            } else {
+                this.table = new int[word.length + maxEdits + 1][word.length + 1];
+                for (int i = 0; i <= word.length; i++) {
+                    this.table[0][i] = i;
+                }
+            }
+        }
+
+        void generate(int pos, int used, int lastOp, int length, int edits) {
+            if (table != null && table[length][pos] < edits) {
+                return;
+            }
+            if (pos == word.length && length > 0 && (table == null || isTraceback(length, edits))) {
+                sink.accept(scratch, length, edits);
+            }
+            if (edits < maxEdits && lastOp != OP_DELETE) {
+                // insertion before pos
+                for (int a = 0; a < alphabet.length; a++) {
+                    if ((pos == 0 || lastOp != OP_KEEP || word[pos - 1] != alphabet[a]) && (!useOnce || (used & (1 << a)) == 0)) {
+                        record(edits, OP_INSERT, pos, length);
+                        append(length, alphabet[a]);
+                        generate(pos, used | (1 << a), OP_INSERT, length + 1, edits + 1);
+                    }
+                }
+            }
+            if (pos == word.length) {
+                return;
+            }
+            // keep
+            append(length, word[pos]);
+            generate(pos + 1, used, OP_KEEP, length + 1, edits);
+            if (edits < maxEdits) {
+                // deletion
+                if (lastOp != OP_INSERT && (pos == 0 || lastOp != OP_KEEP || word[pos - 1] != word[pos])) {
+                    record(edits, OP_DELETE, pos, length);
+                    generate(pos + 1, used, OP_DELETE, length, edits + 1);
+                }
+                // substitution
+                for (int a = 0; a < alphabet.length; a++) {
+                    if (alphabet[a] != word[pos] && (!useOnce || (used & (1 << a)) == 0)) {
+                        record(edits, OP_SUBSTITUTE, pos, length);
+                        append(length, alphabet[a]);
+                        generate(pos + 1, used | (1 << a), OP_SUBSTITUTE, length + 1, edits + 1);
+                    }
+                }
+                // transposition of pos and pos + 1
+                if (transpositions && pos + 1 < word.length && word[pos] != word[pos + 1]) {
+                    record(edits, OP_TRANSPOSE, pos, length);
+                    append(length, word[pos + 1]);
+                    append(length + 1, word[pos]);
+                    generate(pos + 2, used, OP_TRANSPOSE, length + 2, edits + 1);
+                }
+            }
+        }
+
+        private void record(int t, int kind, int pos, int length) {
+            kinds[t] = kind;
+            positions[t] = pos;
+            lengths[t] = length;
+        }
+
+        // Writes c at scratch[length] and fills the table row of the variant's first length + 1 characters.
+        private void append(int length, char c) {
+            scratch[length] = c;
+            if (table == null) {
+                return;
+            }
+            int j = length + 1;
+            int[] previous = table[j - 1];
+            int[] current = table[j];
+            current[0] = j;
+            for (int i = 1; i <= word.length; i++) {
+                int cost = word[i - 1] == c ? 0 : 1;
+                int value = Math.min(Math.min(current[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+                if (transpositions && cost == 1 && i > 1 && j > 1
+                        && word[i - 1] == scratch[j - 2] && word[i - 2] == c && table[j - 2][i - 2] + 1 < value) {
+                    value = table[j - 2][i - 2] + 1;
+                }
+                current[i] = value;
+            }
+        }
+
+        /*
+         * Walks one optimal alignment back from the end of the table, preferring a match, then a
+         * substitution, a transposition, a deletion and an insertion, and checks that the current
+         * script makes exactly those edits.
+         */
+        private boolean isTraceback(int length, int edits) {
+            int i = word.length;
+            int j = length;
+            int t = edits - 1;
+            while (i > 0 || j > 0) {
+                int here = table[j][i];
+                if (i > 0 && j > 0 && word[i - 1] == scratch[j - 1] && table[j - 1][i - 1] == here) {
+                    i--;
+                    j--;
+                    continue;
+                }
+                if (t < 0) {
+                    return false;
+                }
+                int kind;
+                if (i > 0 && j > 0 && table[j - 1][i - 1] + 1 == here) {
+                    kind = OP_SUBSTITUTE;
+                    i--;
+                    j--;
+                } else if (transpositions && i > 1 && j > 1 && word[i - 1] == scratch[j - 2]
+                        && word[i - 2] == scratch[j - 1] && table[j - 2][i - 2] + 1 == here) {
+                    kind = OP_TRANSPOSE;
+                    i -= 2;
+                    j -= 2;
+                } else if (i > 0 && table[j][i - 1] + 1 == here) {
+                    kind = OP_DELETE;
+                    i--;
+                } else {
+                    kind = OP_INSERT;
+                    j--;
+                }
+                if (kinds[t] != kind || positions[t] != i || lengths[t] != j) {
+                    return false;
+                }
+                t--;
+            }
+            return t < 0;
+        }
+    }
+
     public static Set<Word>  getVariants(char[] altChars, String wordString) {
         // N.B. Order of altChars do not matter
         int distance = altChars.length;
@@ -571,6 +770,122 @@ public class Fuzzy {
         return passed;
     }
 
+    public static boolean withinDistance(String s, String t, int k) {
+      return getBoundedDistance(s, t, k) <= k;
+    }
+
+    // Levenshtein distance between s and t if it is at most k, otherwise k+1. Only the 2k+1
+    // diagonals around the main one are computed, and the computation stops as soon as every
+    // cell in the band exceeds k.
+    public static int getBoundedDistance(String s, String t, int k) {
+      return getBoundedDistance(s, t, k, false);
+    }
+
+    public static boolean withinDamerauDistance(String s, String t, int k) {
+      return getBoundedDistance(s, t, k, true) <= k;
+    }
+
+    public static int getBoundedDamerauDistance(String s, String t, int k) {
+      return getBoundedDistance(s, t, k, true);
+    }
+
+    // Optimal string alignment distance: Levenshtein distance where swapping two adjacent
+    // characters counts as a single edit (and no substring is edited twice).
+    public static int getDamerauDistance(String s, String t) {
+      if (s == null || t == null) {
+        throw new IllegalArgumentException("Strings must not be null");
+      }
+      return getBoundedDistance(s, t, Math.max(s.length(), t.length()), true);
+    }
+
+    private static int getBoundedDistance(String s, String t, int k, boolean transpositions) {
+      if (s == null || t == null) {
+        throw new IllegalArgumentException("Strings must not be null");
+      }
+      if (k < 0) {
+        throw new IllegalArgumentException("Distance must not be negative");
+      }
+      int n = s.length();
+      int m = t.length();
+      if (Math.abs(n - m) > k) {
+        return k + 1;
+      }
+      if (n == 0 || m == 0) {
+        return Math.max(n, m);
+      }
+
+      // cell (i, j) of the full matrix lives at band index i - j + k
+      int width = 2 * k + 1;
+      int outside = k + 1;
+      int[] pp = transpositions ? new int[width] : null; // row j-2, for transpositions
+      int[] p = new int[width];
+      int[] d = new int[width];
+      int[] _d;
+
+      for (int b = 0; b < width; b++) {
+        int i = b - k;
+        p[b] = (i < 0 || i > n) ? outside : i;
+      }
+
+      for (int j = 1; j <= m; j++) {
+        char t_j = t.charAt(j-1);
+        int rowMin = outside;
+        for (int b = 0; b < width; b++) {
+          int i = j + b - k;
+          int value;
+          if (i < 0 || i > n) {
+            value = outside;
+          } else if (i == 0) {
+            value = j;
+          } else {
+            char s_i = s.charAt(i-1);
+            int cost = s_i == t_j ? 0 : 1;
+            value = p[b] + cost;
+            if (b > 0 && d[b-1] + 1 < value) {
+              value = d[b-1] + 1;
+            }
+            if (b + 1 < width && p[b+1] + 1 < value) {
+              value = p[b+1] + 1;
+            }
+            if (transpositions && i > 1 && j > 1 && cost == 1
+                && s_i == t.charAt(j-2) && s.charAt(i-2) == t_j && pp[b] + 1 < value) {
+              value = pp[b] + 1;
+            }
+            if (value > outside) {
+              value = outside;
+            }
+          }
+          d[b] = value;
+          if (value < rowMin) {
+            rowMin = value;
+          }
+        }
+        if (rowMin > k) {
+          return k + 1;
+        }
+        if (transpositions) {
+          _d = pp;
+          pp = p;
+          p = d;
+          d = _d;
+        } else {
+          _d = p;
+          p = d;
+          d = _d;
+        }
+      }
+      return Math.min(p[n - m + k], k + 1);
+    }
+
+    // Bit-parallel equivalent of getLevenshteinDistance. To compare one string against many
+    // candidates, build a LevenshteinPattern once and reuse it instead.
+    public static int getMyersDistance(String s, String t) {
+      if (s == null || t == null) {
+        throw new IllegalArgumentException("Strings must not be null");
+      }
+      return new LevenshteinPattern(s).distance(t);
+    }
+
     public static int getLevenshteinDistance(String s, String t) {
       if (s == null || t == null) {
         throw new IllegalArgumentException("Strings must not be null");
@@ -0,0 +1,34 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+/**
+ * A Heuristic whose value at an inner node is the largest value of its children, so a trie can
+ * keep it up to date one path at a time as words are attached instead of recomputing the whole
+ * tree. Setting the tree heuristics of a MaintainedHeuristics trie registers the heuristic with it.
+ */
+public interface IncrementalHeuristic extends Heuristic {
+	int getLeafHeuristic(int depth); // Value of a leaf at depth, inner nodes take the largest value of their children
+}
@@ -0,0 +1,319 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package com.northps.blur;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Levenshtein automaton for a single query word. The automaton accepts every string within
+ * the given edit distance of the query, and is stepped one character at a time so it can be
+ * driven directly by a trie walk instead of enumerating variants with {@link Fuzzy#blur}.
+ *
+ * Transitions come from a parametric table that only depends on the distance, not on the
+ * query, so it is computed once per distance and shared by every automaton.
+ */
+public class LevenshteinAutomaton {
+	public static final long DEAD = -1L;
+	public static final int MAX_DISTANCE = 3;
+
+	private static final ParametricTable[][] TABLES = new ParametricTable[2][MAX_DISTANCE + 1];
+
+	private final char[] word;
+	private final int distance;
+	private final boolean transpositions;
+	private final ParametricTable table;
+
+	public LevenshteinAutomaton(String query, int distance) {
+		this(query, distance, false);
+	}
+
+	// With transpositions, swapping two adjacent characters counts as one edit (optimal string alignment).
+	public LevenshteinAutomaton(String query, int distance, boolean transpositions) {
+		if (distance < 0 || distance > MAX_DISTANCE) {
+			throw new IllegalArgumentException("Supports distances 0 to " + MAX_DISTANCE);
+		}
+		this.word = query.toLowerCase().trim().toCharArray();
+		this.distance = distance;
+		this.transpositions = transpositions;
+		this.table = getTable(distance, transpositions);
+	}
+
+	private static synchronized ParametricTable getTable(int distance, boolean transpositions) {
+		int kind = transpositions ? 1 : 0;
+		if (TABLES[kind][distance] == null) {
+			TABLES[kind][distance] = new ParametricTable(distance, transpositions);
+		}
+		return TABLES[kind][distance];
+	}
+
+	public int getMaxDistance() {
+		return this.distance;
+	}
+
+	public boolean isTranspositions() {
+		return this.transpositions;
+	}
+
+	public long getInitialState() {
+		return pack(0, ParametricTable.INITIAL);
+	}
+
+	// Returns the state reached after reading c, or DEAD if no extension of the input can be accepted.
+	public long step(long state, char c) {
+		if (state == DEAD) {
+			return DEAD;
+		}
+		int base = (int) (state >>> 32);
+		int id = (int) state;
+		int remaining = Math.min(this.word.length - base, this.table.width);
+		int vector = 0;
+		for (int k = 0; k < remaining; k++) {
+			if (this.word[base + k] == c) {
+				vector |= 1 << k;
+			}
+		}
+		int next = this.table.transition(id, remaining, vector);
+		if (next < 0) {
+			return DEAD;
+		}
+		return pack(base + (next >>> ParametricTable.SHIFT_BITS), next & ParametricTable.ID_MASK);
+	}
+
+	// Edit distance between the query and the input read so far, or Integer.MAX_VALUE if it exceeds the maximum.
+	public int getDistance(long state) {
+		if (state == DEAD) {
+			return Integer.MAX_VALUE;
+		}
+		int base = (int) (state >>> 32);
+		int result = this.table.distance((int) state, this.word.length - base);
+		return result <= this.distance ? result : Integer.MAX_VALUE;
+	}
+
+	public boolean isAccepting(long state) {
+		return getDistance(state) <= this.distance;
+	}
+
+	public boolean isDead(long state) {
+		return state == DEAD;
+	}
+
+	private static long pack(int base, int id) {
+		return ((long) base << 32) | (id & 0xFFFFFFFFL);
+	}
+
+	/*
+	 * States are sets of positions (offset, errors) normalised so the smallest offset is 0. The
+	 * input to a transition is the characteristic vector of the next character against the
+	 * 2n+1 query characters starting at the state's base, plus how many of those characters
+	 * exist. Each table cell holds the next state id and how far the base moves.
+	 *
+	 * With transpositions a position can also be a pending swap (offset, errors, 1): the input
+	 * matched the query character after offset, and the next input must match the one at offset.
+	 */
+	static final class ParametricTable {
+		static final int INITIAL = 0;
+		static final int SHIFT_BITS = 24;
+		static final int ID_MASK = (1 << SHIFT_BITS) - 1;
+
+		final int width;
+		private final int maxDistance;
+		private final boolean transpositions;
+		private final int columns;
+		private final List<int[]> offsets = new ArrayList<int[]>();
+		private final List<int[]> errors = new ArrayList<int[]>();
+		private final List<int[]> swaps = new ArrayList<int[]>();
+		private final int[][] transitions;
+
+		ParametricTable(int maxDistance, boolean transpositions) {
+			this.maxDistance = maxDistance;
+			this.transpositions = transpositions;
+			this.width = 2 * maxDistance + 1;
+			this.columns = (this.width + 1) << this.width;
+
+			Map<String, Integer> ids = new HashMap<String, Integer>();
+			List<int[]> rows = new ArrayList<int[]>();
+			intern(new int[] {0}, new int[] {0}, new int[] {0}, ids);
+			for (int id = 0; id < this.offsets.size(); id++) {
+				int[] row = new int[this.columns];
+				Arrays.fill(row, -1);
+				for (int remaining = 0; remaining <= this.width; remaining++) {
+					for (int vector = 0; vector < (1 << remaining); vector++) {
+						row[column(remaining, vector)] = computeTransition(id, remaining, vector, ids);
+					}
+				}
+				rows.add(row);
+			}
+			this.transitions = rows.toArray(new int[rows.size()][]);
+		}
+
+		int transition(int id, int remaining, int vector) {
+			return this.transitions[id][column(remaining, vector)];
+		}
+
+		int distance(int id, int remaining) {
+			int[] o = this.offsets.get(id);
+			int[] e = this.errors.get(id);
+			int[] t = this.swaps.get(id);
+			int min = Integer.MAX_VALUE;
+			for (int k = 0; k < o.length; k++) {
+				if (t[k] != 0) {
+					continue;
+				}
+				int d = e[k] + remaining - o[k];
+				if (d < min) {
+					min = d;
+				}
+			}
+			return min;
+		}
+
+		int size() {
+			return this.offsets.size();
+		}
+
+		private int column(int remaining, int vector) {
+			return (remaining << this.width) | vector;
+		}
+
+		private int computeTransition(int id, int remaining, int vector, Map<String, Integer> ids) {
+			int[] o = this.offsets.get(id);
+			int[] e = this.errors.get(id);
+			int[] t = this.swaps.get(id);
+			List<int[]> next = new ArrayList<int[]>();
+			for (int k = 0; k < o.length; k++) {
+				int i = o[k];
+				if (t[k] != 0) {
+					// second half of a swap
+					if (i < remaining && (vector & (1 << i)) != 0) {
+						next.add(new int[] {i + 2, e[k], 0});
+					}
+					continue;
+				}
+				if (i < remaining && (vector & (1 << i)) != 0) {
+					next.add(new int[] {i + 1, e[k], 0});
+				}
+				if (e[k] < this.maxDistance) {
+					// insertion
+					next.add(new int[] {i, e[k] + 1, 0});
+					if (i < remaining) {
+						// substitution
+						next.add(new int[] {i + 1, e[k] + 1, 0});
+					}
+					// deletion of j query characters followed by a match
+					for (int j = 1; j <= this.maxDistance - e[k]; j++) {
+						if (i + j < remaining && (vector & (1 << (i + j))) != 0) {
+							next.add(new int[] {i + j + 1, e[k] + j, 0});
+						}
+					}
+					// first half of a swap
+					if (this.transpositions && i + 1 < remaining && (vector & (1 << (i + 1))) != 0) {
+						next.add(new int[] {i, e[k] + 1, 1});
+					}
+				}
+			}
+			List<int[]> reduced = new ArrayList<int[]>();
+			for (int[] candidate : next) {
+				if (!isSubsumed(candidate, next) && !contains(reduced, candidate)) {
+					reduced.add(candidate);
+				}
+			}
+			if (reduced.isEmpty()) {
+				return -1;
+			}
+			int shift = Integer.MAX_VALUE;
+			for (int[] p : reduced) {
+				shift = Math.min(shift, p[0]);
+			}
+			int[] newOffsets = new int[reduced.size()];
+			int[] newErrors = new int[reduced.size()];
+			int[] newSwaps = new int[reduced.size()];
+			for (int k = 0; k < reduced.size(); k++) {
+				newOffsets[k] = reduced.get(k)[0] - shift;
+				newErrors[k] = reduced.get(k)[1];
+				newSwaps[k] = reduced.get(k)[2];
+			}
+			return (shift << SHIFT_BITS) | intern(newOffsets, newErrors, newSwaps, ids);
+		}
+
+		// (i, e) subsumes (j, f) when every string accepted from (j, f) is also accepted from (i, e).
+		// Pending swaps are never dropped, and never used to drop anything else.
+		private boolean isSubsumed(int[] p, List<int[]> positions) {
+			if (p[2] != 0) {
+				return false;
+			}
+			for (int[] q : positions) {
+				if (q[2] == 0 && q[1] < p[1] && Math.abs(q[0] - p[0]) <= p[1] - q[1]) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static int compare(int[] o, int[] e, int[] s, int a, int b) {
+			if (o[a] != o[b]) {
+				return o[a] - o[b];
+			}
+			if (e[a] != e[b]) {
+				return e[a] - e[b];
+			}
+			return s[a] - s[b];
+		}
+
+		private boolean contains(List<int[]> positions, int[] p) {
+			for (int[] q : positions) {
+				if (q[0] == p[0] && q[1] == p[1] && q[2] == p[2]) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private int intern(int[] o, int[] e, int[] s, Map<String, Integer> ids) {
+			// sort positions so equal sets share a key
+			for (int a = 1; a < o.length; a++) {
+				for (int b = a; b > 0 && compare(o, e, s, b, b - 1) < 0; b--) {
+					int t = o[b]; o[b] = o[b - 1]; o[b - 1] = t;
+					t = e[b]; e[b] = e[b - 1]; e[b - 1] = t;
+					t = s[b]; s[b] = s[b - 1]; s[b - 1] = t;
+				}
+			}
+			String key = Arrays.toString(o) + Arrays.toString(e) + Arrays.toString(s);
+			Integer id = ids.get(key);
+			if (id == null) {
+				id = Integer.valueOf(this.offsets.size());
+				ids.put(key, id);
+				this.offsets.add(o);
+				this.errors.add(e);
+				this.swaps.add(s);
+			}
+			return id.intValue();
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package com.northps.blur;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bit-parallel Levenshtein distance (Myers, in Hyyro's formulation) from one query to many
+ * candidate strings. The query's match masks are computed once, and each candidate then costs
+ * one pass over its characters with a handful of word operations per 64 query characters.
+ *
+ * Queries longer than 64 characters are split into 64 bit blocks and the horizontal deltas
+ * carried from block to block. Instances reuse internal buffers and are not thread safe.
+ */
+public class LevenshteinPattern {
+	private static final int ASCII = 128;
+	private static final long HIGH_BIT = 1L << 63;
+
+	private final String pattern;
+	private final int length;
+	private final int blocks;
+	private final long lastBit;
+	private final long[] asciiMasks;
+	private final Map<Character, long[]> otherMasks = new HashMap<Character, long[]>();
+	private final long[] empty;
+	private final long[] pv;
+	private final long[] mv;
+
+	public LevenshteinPattern(String pattern) {
+		if (pattern == null) {
+			throw new IllegalArgumentException("Pattern must not be null");
+		}
+		this.pattern = pattern;
+		this.length = pattern.length();
+		this.blocks = Math.max(1, (this.length + 63) >>> 6);
+		this.lastBit = this.length == 0 ? 0 : 1L << ((this.length - 1) & 63);
+		this.asciiMasks = new long[ASCII * this.blocks];
+		this.empty = new long[this.blocks];
+		for (int i = 0; i < this.length; i++) {
+			char c = pattern.charAt(i);
+			long bit = 1L << (i & 63);
+			if (c < ASCII) {
+				this.asciiMasks[c * this.blocks + (i >>> 6)] |= bit;
+			} else {
+				Character key = Character.valueOf(c);
+				long[] masks = this.otherMasks.get(key);
+				if (masks == null) {
+					masks = new long[this.blocks];
+					this.otherMasks.put(key, masks);
+				}
+				masks[i >>> 6] |= bit;
+			}
+		}
+		this.pv = new long[this.blocks];
+		this.mv = new long[this.blocks];
+	}
+
+	public String getPattern() {
+		return this.pattern;
+	}
+
+	public int distance(CharSequence text) {
+		return distance(text, Integer.MAX_VALUE - 1);
+	}
+
+	public boolean withinDistance(CharSequence text, int k) {
+		return distance(text, k) <= k;
+	}
+
+	// Distance to text if it is at most k, otherwise k+1. Rejects on length difference, and stops
+	// once the distance so far, less what the remaining characters could undo, exceeds k.
+	public int distance(CharSequence text, int k) {
+		int n = text.length();
+		if (Math.abs(n - this.length) > k) {
+			return k + 1;
+		}
+		if (this.length == 0) {
+			return n;
+		}
+		int result = this.blocks == 1 ? distanceSingleBlock(text, n, k) : distanceBlocked(text, n, k);
+		return Math.min(result, k + 1);
+	}
+
+	private int distanceSingleBlock(CharSequence text, int n, int k) {
+		long pv = -1L;
+		long mv = 0L;
+		int score = this.length;
+		for (int j = 0; j < n; j++) {
+			char c = text.charAt(j);
+			long eq = c < ASCII ? this.asciiMasks[c] : getMasks(c)[0];
+			long xv = eq | mv;
+			long xh = (((eq & pv) + pv) ^ pv) | eq;
+			long ph = mv | ~(xh | pv);
+			long mh = pv & xh;
+			if ((ph & this.lastBit) != 0) {
+				score++;
+			} else if ((mh & this.lastBit) != 0) {
+				score--;
+			}
+			if (score - (n - j - 1) > k) {
+				return k + 1;
+			}
+			ph = (ph << 1) | 1L;
+			mh = mh << 1;
+			pv = mh | ~(xv | ph);
+			mv = ph & xv;
+		}
+		return score;
+	}
+
+	private int distanceBlocked(CharSequence text, int n, int k) {
+		long[] pv = this.pv;
+		long[] mv = this.mv;
+		for (int b = 0; b < this.blocks; b++) {
+			pv[b] = -1L;
+			mv[b] = 0L;
+		}
+		int last = this.blocks - 1;
+		int score = this.length;
+		for (int j = 0; j < n; j++) {
+			char c = text.charAt(j);
+			long[] masks = null;
+			int offset = 0;
+			if (c < ASCII) {
+				masks = this.asciiMasks;
+				offset = c * this.blocks;
+			} else {
+				masks = getMasks(c);
+			}
+			// the top row of the matrix grows by one per column
+			int hin = 1;
+			for (int b = 0; b < this.blocks; b++) {
+				long eq = masks[offset + b];
+				long xv = eq | mv[b];
+				if (hin < 0) {
+					eq |= 1L;
+				}
+				long xh = (((eq & pv[b]) + pv[b]) ^ pv[b]) | eq;
+				long ph = mv[b] | ~(xh | pv[b]);
+				long mh = pv[b] & xh;
+				if (b == last) {
+					if ((ph & this.lastBit) != 0) {
+						score++;
+					} else if ((mh & this.lastBit) != 0) {
+						score--;
+					}
+				}
+				int hout = (ph & HIGH_BIT) != 0 ? 1 : ((mh & HIGH_BIT) != 0 ? -1 : 0);
+				ph <<= 1;
+				mh <<= 1;
+				if (hin < 0) {
+					mh |= 1L;
+				} else if (hin > 0) {
+					ph |= 1L;
+				}
+				pv[b] = mh | ~(xv | ph);
+				mv[b] = ph & xv;
+				hin = hout;
+			}
+			if (score - (n - j - 1) > k) {
+				return k + 1;
+			}
+		}
+		return score;
+	}
+
+	private long[] getMasks(char c) {
+		long[] masks = this.otherMasks.get(Character.valueOf(c));
+		return masks == null ? this.empty : masks;
+	}
+}
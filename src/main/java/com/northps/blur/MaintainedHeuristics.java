@@ -0,0 +1,35 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+/**
+ * A trie that keeps its heuristics up to date as words are attached, so a search ranking with
+ * the heuristic it maintains can use them as they are instead of setting the whole tree again.
+ */
+public interface MaintainedHeuristics {
+	IncrementalHeuristic getMaintainedHeuristic(); // Heuristic the trie's values follow, or null if none is maintained
+	void setMaintainedHeuristic(IncrementalHeuristic heuristic); // Called by heuristic before it sets every value of the trie, throws if the trie cannot keep it
+	void refreshHeuristics(); // Brings values left out of date since the last search up to date
+}
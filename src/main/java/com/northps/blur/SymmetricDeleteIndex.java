@@ -0,0 +1,252 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package com.northps.blur;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Symmetric delete spelling index. Every string obtained by deleting up to maxDistance
+ * characters from a dictionary word is mapped back to that word, so a query only has to
+ * generate its own deletions and look them up; insertions and substitutions over the alphabet
+ * are never enumerated. Candidates are verified with a real edit distance.
+ *
+ * Deletes are keyed by a 64 bit hash rather than stored as Strings, and only the first
+ * prefixLength characters of each word are indexed. Both bound the memory used, at the cost of
+ * more candidates to verify.
+ */
+public class SymmetricDeleteIndex {
+	public static final int DEFAULT_MAX_DISTANCE = 2;
+	public static final int DEFAULT_PREFIX_LENGTH = 7;
+
+	private static final int INITIAL_CAPACITY = 1 << 10;
+	private static final long EMPTY = 0L;
+
+	private final int maxDistance;
+	private final int prefixLength;
+
+	private final List<String> words = new ArrayList<String>();
+	private final Map<String, Integer> wordIds = new HashMap<String, Integer>();
+
+	// open addressing table from delete hash to the head of its posting chain
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private int[] heads = new int[INITIAL_CAPACITY];
+	private int keyCount = 0;
+
+	// posting chains of word ids
+	private int[] postingWords = new int[INITIAL_CAPACITY];
+	private int[] postingNext = new int[INITIAL_CAPACITY];
+	private int postingCount = 0;
+
+	public SymmetricDeleteIndex() {
+		this(DEFAULT_MAX_DISTANCE, DEFAULT_PREFIX_LENGTH);
+	}
+
+	public SymmetricDeleteIndex(int maxDistance, int prefixLength) {
+		if (maxDistance < 0 || prefixLength <= maxDistance) {
+			throw new IllegalArgumentException("Prefix length must be greater than the maximum distance.");
+		}
+		if (prefixLength > 63) {
+			throw new IllegalArgumentException("Prefix length must be at most 63.");
+		}
+		this.maxDistance = maxDistance;
+		this.prefixLength = prefixLength;
+	}
+
+	public void add(String rawWord) {
+		String word = rawWord.toLowerCase().trim();
+		if (word.length() == 0 || this.wordIds.containsKey(word)) {
+			return;
+		}
+		final int id = this.words.size();
+		this.words.add(word);
+		this.wordIds.put(word, Integer.valueOf(id));
+
+		final Set<Long> seen = new HashSet<Long>();
+		generateDeletes(word, new DeleteSink() {
+			public void accept(long hash) {
+				if (seen.add(Long.valueOf(hash))) {
+					addPosting(hash, id);
+				}
+			}
+		});
+	}
+
+	// Returns the indexed words within maxDistance of the query, labelled with their distance.
+	public List<Word> lookup(String rawQuery) {
+		return lookup(rawQuery, this.maxDistance);
+	}
+
+	public List<Word> lookup(String rawQuery, int distance) {
+		return lookup(rawQuery, distance, false);
+	}
+
+	// With transpositions, hits are verified with optimal string alignment distance. A swap is
+	// two deletes apart, so it is always found once distance is at least 1.
+	public List<Word> lookup(String rawQuery, int distance, final boolean transpositions) {
+		if (distance > this.maxDistance) {
+			throw new IllegalArgumentException("Index was built for distances up to " + this.maxDistance);
+		}
+		final String query = rawQuery.toLowerCase().trim();
+		final int limit = distance;
+		final List<Word> results = new ArrayList<Word>();
+		final Set<Integer> checked = new HashSet<Integer>();
+		final LevenshteinPattern pattern = new LevenshteinPattern(query);
+		generateDeletes(query, new DeleteSink() {
+			public void accept(long hash) {
+				for (int p = find(hash); p >= 0; p = postingNext[p]) {
+					int id = postingWords[p];
+					if (checked.add(Integer.valueOf(id))) {
+						String candidate = words.get(id);
+						int d = transpositions ? Fuzzy.getBoundedDamerauDistance(query, candidate, limit)
+								: pattern.distance(candidate, limit);
+						if (d <= limit) {
+							results.add(new Word(candidate, d));
+						}
+					}
+				}
+			}
+		});
+		return results;
+	}
+
+	public int getMaxDistance() {
+		return this.maxDistance;
+	}
+
+	public int getPrefixLength() {
+		return this.prefixLength;
+	}
+
+	public int getWordCount() {
+		return this.words.size();
+	}
+
+	public int getDeleteCount() {
+		return this.keyCount;
+	}
+
+	public int getPostingCount() {
+		return this.postingCount;
+	}
+
+	// Approximate heap used by the hash table and postings, not counting the word Strings themselves.
+	public long getMemoryUsage() {
+		return (long) this.keys.length * 8 + (long) this.heads.length * 4
+				+ (long) this.postingWords.length * 4 + (long) this.postingNext.length * 4;
+	}
+
+	@Override
+	public String toString() {
+		return "SymmetricDeleteIndex[words=" + getWordCount() + ", deletes=" + getDeleteCount()
+				+ ", postings=" + getPostingCount() + ", bytes=" + getMemoryUsage() + "]";
+	}
+
+	private interface DeleteSink {
+		void accept(long hash);
+	}
+
+	private void generateDeletes(String word, DeleteSink sink) {
+		char[] chars = word.toCharArray();
+		int length = Math.min(chars.length, this.prefixLength);
+		generateDeletes(chars, length, 0, 0, 0, sink);
+	}
+
+	// Deletes are chosen in increasing position order so each deletion set is visited once.
+	private void generateDeletes(char[] chars, int length, int from, int deleted, long deletedMask, DeleteSink sink) {
+		sink.accept(hash(chars, length, deletedMask));
+		if (deleted == this.maxDistance) {
+			return;
+		}
+		for (int i = from; i < length; i++) {
+			generateDeletes(chars, length, i + 1, deleted + 1, deletedMask | (1L << i), sink);
+		}
+	}
+
+	private static long hash(char[] chars, int length, long deletedMask) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < length; i++) {
+			if ((deletedMask & (1L << i)) == 0) {
+				h ^= chars[i];
+				h *= 0x100000001b3L;
+			}
+		}
+		return h == EMPTY ? 1L : h;
+	}
+
+	private int slot(long hash) {
+		int mask = this.keys.length - 1;
+		int i = (int) (hash ^ (hash >>> 32)) & mask;
+		while (this.keys[i] != EMPTY && this.keys[i] != hash) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private int find(long hash) {
+		int i = slot(hash);
+		return this.keys[i] == EMPTY ? -1 : this.heads[i];
+	}
+
+	private void addPosting(long hash, int id) {
+		if ((this.keyCount + 1) * 4 > this.keys.length * 3) {
+			rehash();
+		}
+		if (this.postingCount == this.postingWords.length) {
+			this.postingWords = Arrays.copyOf(this.postingWords, this.postingCount * 2);
+			this.postingNext = Arrays.copyOf(this.postingNext, this.postingCount * 2);
+		}
+		int i = slot(hash);
+		if (this.keys[i] == EMPTY) {
+			this.keys[i] = hash;
+			this.heads[i] = -1;
+			this.keyCount++;
+		}
+		this.postingWords[this.postingCount] = id;
+		this.postingNext[this.postingCount] = this.heads[i];
+		this.heads[i] = this.postingCount;
+		this.postingCount++;
+	}
+
+	private void rehash() {
+		long[] oldKeys = this.keys;
+		int[] oldHeads = this.heads;
+		this.keys = new long[oldKeys.length * 2];
+		this.heads = new int[oldKeys.length * 2];
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != EMPTY) {
+				int i = slot(oldKeys[j]);
+				this.keys[i] = oldKeys[j];
+				this.heads[i] = oldHeads[j];
+			}
+		}
+	}
+}
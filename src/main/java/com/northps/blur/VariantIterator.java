@@ -0,0 +1,253 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package com.northps.blur;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily enumerates the variants of a word within any edit distance, in nondecreasing order of
+ * distance. Each variant is reported once, labelled with its true edit distance, so a caller
+ * can stop pulling as soon as it has enough hits.
+ *
+ * The current edit script is held as k (position, symbol) pairs and advanced like an odometer,
+ * so the working state is O(k) plus the edit distance table of the word against its longest
+ * variant. Several scripts of the same length can spell one variant (deleting b then
+ * substituting c by a, or substituting b by a then deleting c, both turn abc into aa), so a
+ * variant is only reported from the script that matches one fixed traceback of that table.
+ */
+public class VariantIterator implements Iterator<Word> {
+	private final char[] word;
+	private final char[] alphabet;
+	private final int maxDistance;
+
+	// Edit t is at code codes[t]: 2p inserts before word[p], 2p+1 deletes (symbol 0) or substitutes word[p].
+	private final int[] codes;
+	private final int[] symbols;
+	private final char[] scratch;
+	// table[j][i] is the edit distance between the first i characters of the word and of the variant.
+	private final int[][] table;
+
+	private int distance = -1;
+	private Word next = null;
+
+	public VariantIterator(int maxDistance, String rawWord) {
+		this(maxDistance, rawWord, Fuzzy.ALPHABET);
+	}
+
+	public VariantIterator(int maxDistance, String rawWord, char[] alphabet) {
+		if (maxDistance < 0) {
+			throw new IllegalArgumentException("Distance must not be negative.");
+		}
+		this.word = rawWord.toLowerCase().trim().toCharArray();
+		this.alphabet = alphabet;
+		this.maxDistance = maxDistance;
+		this.codes = new int[maxDistance];
+		this.symbols = new int[maxDistance];
+		this.scratch = new char[this.word.length + maxDistance];
+		this.table = new int[this.word.length + maxDistance + 1][this.word.length + 1];
+	}
+
+	public boolean hasNext() {
+		if (this.next == null) {
+			this.next = advance();
+		}
+		return this.next != null;
+	}
+
+	public Word next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Word result = this.next;
+		this.next = null;
+		return result;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	private Word advance() {
+		while (step()) {
+			int length = apply();
+			if (length > 0 && isCanonical() && getDistance(length) == this.distance && isTraceback(length)) {
+				return new Word(new String(this.scratch, 0, length), this.distance);
+			}
+		}
+		return null;
+	}
+
+	// Moves to the next edit script, starting the next distance once the current one is exhausted.
+	private boolean step() {
+		if (this.distance < 0) {
+			this.distance = 0;
+			return true;
+		}
+		if (this.distance > 0 && increment(this.distance - 1)) {
+			return true;
+		}
+		if (this.distance < this.maxDistance) {
+			this.distance++;
+			reset(0);
+			return true;
+		}
+		return false;
+	}
+
+	private boolean increment(int t) {
+		for (; t >= 0; t--) {
+			this.symbols[t]++;
+			if (this.symbols[t] < getSymbolCount(this.codes[t])) {
+				reset(t + 1);
+				return true;
+			}
+			this.symbols[t] = 0;
+			this.codes[t]++;
+			if (this.codes[t] <= 2 * this.word.length) {
+				reset(t + 1);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Sets edits from..distance-1 to the smallest script that follows edit from-1.
+	private void reset(int from) {
+		for (int t = from; t < this.distance; t++) {
+			if (t == 0) {
+				this.codes[t] = 0;
+			} else {
+				this.codes[t] = (this.codes[t - 1] & 1) == 0 ? this.codes[t - 1] : this.codes[t - 1] + 1;
+			}
+			this.symbols[t] = 0;
+		}
+	}
+
+	private int getSymbolCount(int code) {
+		return (code & 1) == 0 ? this.alphabet.length : this.alphabet.length + 1;
+	}
+
+	private int apply() {
+		int length = 0;
+		int e = 0;
+		for (int p = 0; p <= this.word.length; p++) {
+			while (e < this.distance && this.codes[e] == 2 * p) {
+				this.scratch[length++] = this.alphabet[this.symbols[e++]];
+			}
+			if (p < this.word.length) {
+				if (e < this.distance && this.codes[e] == 2 * p + 1) {
+					if (this.symbols[e] > 0) {
+						this.scratch[length++] = this.alphabet[this.symbols[e] - 1];
+					}
+					e++;
+				} else {
+					this.scratch[length++] = this.word[p];
+				}
+			}
+		}
+		return length;
+	}
+
+	// Cheap filter for scripts that are never optimal, which would fail the distance check anyway.
+	private boolean isCanonical() {
+		for (int t = 0; t < this.distance; t++) {
+			int p = this.codes[t] >> 1;
+			if ((this.codes[t] & 1) == 0) {
+				// an insertion next to a deletion is a substitution
+				if (t > 0 && this.codes[t - 1] == 2 * p - 1 && this.symbols[t - 1] == 0) {
+					return false;
+				}
+				if (t + 1 < this.distance && this.codes[t + 1] == 2 * p + 1 && this.symbols[t + 1] == 0) {
+					return false;
+				}
+			} else if (this.symbols[t] > 0 && this.alphabet[this.symbols[t] - 1] == this.word[p]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int getDistance(int length) {
+		int n = this.word.length;
+		for (int i = 0; i <= n; i++) {
+			this.table[0][i] = i;
+		}
+		for (int j = 1; j <= length; j++) {
+			char c = this.scratch[j - 1];
+			int[] previous = this.table[j - 1];
+			int[] current = this.table[j];
+			current[0] = j;
+			for (int i = 1; i <= n; i++) {
+				int cost = this.word[i - 1] == c ? 0 : 1;
+				current[i] = Math.min(Math.min(current[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+			}
+		}
+		return this.table[length][n];
+	}
+
+	/*
+	 * Walks one optimal alignment back from the end of the table, preferring a match, then a
+	 * substitution, a deletion and an insertion, and checks that the current script makes exactly
+	 * those edits. Every variant has one such alignment, so it is reported by one script only.
+	 */
+	private boolean isTraceback(int length) {
+		int i = this.word.length;
+		int j = length;
+		int t = this.distance - 1;
+		while (i > 0 || j > 0) {
+			int here = this.table[j][i];
+			if (i > 0 && j > 0 && this.word[i - 1] == this.scratch[j - 1] && this.table[j - 1][i - 1] == here) {
+				i--;
+				j--;
+				continue;
+			}
+			if (t < 0) {
+				return false;
+			}
+			if (i > 0 && j > 0 && this.table[j - 1][i - 1] + 1 == here) {
+				if (this.codes[t] != 2 * i - 1 || this.symbols[t] == 0
+						|| this.alphabet[this.symbols[t] - 1] != this.scratch[j - 1]) {
+					return false;
+				}
+				i--;
+				j--;
+			} else if (i > 0 && this.table[j][i - 1] + 1 == here) {
+				if (this.codes[t] != 2 * i - 1 || this.symbols[t] != 0) {
+					return false;
+				}
+				i--;
+			} else {
+				if (this.codes[t] != 2 * i || this.alphabet[this.symbols[t]] != this.scratch[j - 1]) {
+					return false;
+				}
+				j--;
+			}
+			t--;
+		}
+		return t < 0;
+	}
+}
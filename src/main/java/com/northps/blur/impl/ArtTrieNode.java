@@ -0,0 +1,423 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.northps.blur.IncrementalHeuristic;
+import com.northps.blur.MaintainedHeuristics;
+import com.northps.blur.TrieNode;
+import com.northps.blur.util.CompletionSearch;
+import com.northps.blur.util.DictionaryReader;
+
+/**
+ * Trie node with adaptive radix tree child layouts. A node starts with no child storage and
+ * moves through Node4 and Node16 (sorted keys scanned linearly), Node48 (a 256 entry index of
+ * slots) and Node256 (children indexed directly by character) as attach fills it. Most nodes
+ * have one or two children and stay Node4.
+ *
+ * The wide layouts are indexed by Latin-1 character. A node that outgrows Node16 while holding
+ * a character above that range falls back to a HashMap. Words and results are as for MTrieNode.
+ */
+public class ArtTrieNode implements TrieNode, MaintainedHeuristics {
+	public static final int LEAF = 0;
+	public static final int NODE4 = 4;
+	public static final int NODE16 = 16;
+	public static final int NODE48 = 48;
+	public static final int NODE256 = 256;
+	public static final int NODE_MAP = -1;
+
+	private static final int INDEXED = 256; // characters the wide layouts can index
+	private static int guid = 0;
+
+	private final Character value;
+	private final int depth;
+	private final int id;
+	private int heuristic = 0;
+	private boolean isHeuristicSet = false;
+	private IncrementalHeuristic maintained = null; // of a root, kept up to date by attach
+
+	private int layout = LEAF;
+	private int count = 0;
+	private char[] keys; // Node4 and Node16, sorted
+	private byte[] index; // Node48, slot + 1 per character, 0 when absent
+	private ArtTrieNode[] children; // Node4, Node16 and Node48 slots, or Node256 by character
+	private Map<Character, ArtTrieNode> wide; // NODE_MAP
+
+	private static synchronized int getGuid() {
+		guid++;
+		return guid;
+	}
+
+	public ArtTrieNode() {
+		this(null, 0);
+	}
+
+	private ArtTrieNode(Character value, int depth) {
+		this.id = getGuid();
+		this.value = value;
+		this.depth = depth;
+	}
+
+	public void attach(String word) {
+		if (word.length() <= 1) {
+			return;
+		}
+		if (!isRoot()) {
+			throw new UnsupportedOperationException("Words can only be attached to the root");
+		}
+		ArtTrieNode node = this;
+		for (int i = 0; i < word.length(); i++) {
+			char c = word.charAt(i);
+			ArtTrieNode child = node.getChild(c);
+			if (child == null) {
+				child = new ArtTrieNode(Character.valueOf(c), node.depth + 1);
+				node.addChild(c, child);
+			}
+			node = child;
+		}
+		if (this.maintained != null) {
+			repairHeuristics(word);
+		}
+	}
+
+	// Brings the heuristics on word's path up to date from the leaf up, stopping at the first node
+	// whose value does not change since its ancestors cannot change either.
+	private void repairHeuristics(String word) {
+		ArtTrieNode[] path = new ArtTrieNode[word.length()];
+		ArtTrieNode node = this;
+		for (int i = 0; i < word.length(); i++) {
+			node = node.getChild(word.charAt(i));
+			path[i] = node;
+		}
+		for (int i = path.length - 1; i >= 0; i--) {
+			ArtTrieNode step = path[i];
+			int value = step.isLeaf() ? this.maintained.getLeafHeuristic(step.depth) : step.getMaxChildHeuristic();
+			if (step.isHeuristicSet && step.heuristic == value) {
+				break;
+			}
+			step.setHeuristic(value);
+		}
+	}
+
+	private int getMaxChildHeuristic() {
+		int max = 0;
+		for (ArtTrieNode child : childList()) {
+			if (child.heuristic > max) {
+				max = child.heuristic;
+			}
+		}
+		return max;
+	}
+
+	public ArtTrieNode getChild(char c) {
+		switch (this.layout) {
+		case NODE4:
+		case NODE16:
+			for (int i = 0; i < this.count; i++) {
+				if (this.keys[i] == c) {
+					return this.children[i];
+				}
+			}
+			return null;
+		case NODE48:
+			return c < INDEXED && this.index[c] != 0 ? this.children[this.index[c] - 1] : null;
+		case NODE256:
+			return c < INDEXED ? this.children[c] : null;
+		case NODE_MAP:
+			return this.wide.get(Character.valueOf(c));
+		default:
+			return null;
+		}
+	}
+
+	private void addChild(char c, ArtTrieNode child) {
+		switch (this.layout) {
+		case LEAF:
+			this.layout = NODE4;
+			this.keys = new char[NODE4];
+			this.children = new ArtTrieNode[NODE4];
+			break;
+		case NODE4:
+			if (this.count == NODE4) {
+				this.layout = NODE16;
+				this.keys = Arrays.copyOf(this.keys, NODE16);
+				this.children = Arrays.copyOf(this.children, NODE16);
+			}
+			break;
+		case NODE16:
+			if (this.count == NODE16) {
+				if (c < INDEXED && this.keys[NODE16 - 1] < INDEXED) {
+					growToNode48();
+				} else {
+					growToMap();
+				}
+			}
+			break;
+		case NODE48:
+			if (c >= INDEXED) {
+				growToMap();
+			} else if (this.count == NODE48) {
+				growToNode256();
+			}
+			break;
+		case NODE256:
+			if (c >= INDEXED) {
+				growToMap();
+			}
+			break;
+		}
+
+		switch (this.layout) {
+		case NODE4:
+		case NODE16:
+			int at = this.count;
+			while (at > 0 && this.keys[at - 1] > c) {
+				this.keys[at] = this.keys[at - 1];
+				this.children[at] = this.children[at - 1];
+				at--;
+			}
+			this.keys[at] = c;
+			this.children[at] = child;
+			break;
+		case NODE48:
+			this.children[this.count] = child;
+			this.index[c] = (byte) (this.count + 1);
+			break;
+		case NODE256:
+			this.children[c] = child;
+			break;
+		case NODE_MAP:
+			this.wide.put(Character.valueOf(c), child);
+			break;
+		}
+		this.count++;
+	}
+
+	private void growToNode48() {
+		byte[] index = new byte[INDEXED];
+		ArtTrieNode[] slots = new ArtTrieNode[NODE48];
+		for (int i = 0; i < this.count; i++) {
+			slots[i] = this.children[i];
+			index[this.keys[i]] = (byte) (i + 1);
+		}
+		this.layout = NODE48;
+		this.keys = null;
+		this.index = index;
+		this.children = slots;
+	}
+
+	private void growToNode256() {
+		ArtTrieNode[] direct = new ArtTrieNode[NODE256];
+		for (int c = 0; c < INDEXED; c++) {
+			if (this.index[c] != 0) {
+				direct[c] = this.children[this.index[c] - 1];
+			}
+		}
+		this.layout = NODE256;
+		this.index = null;
+		this.children = direct;
+	}
+
+	private void growToMap() {
+		Map<Character, ArtTrieNode> wide = new HashMap<Character, ArtTrieNode>(this.count * 2);
+		for (ArtTrieNode child : childList()) {
+			wide.put(child.value, child);
+		}
+		this.layout = NODE_MAP;
+		this.keys = null;
+		this.index = null;
+		this.children = null;
+		this.wide = wide;
+	}
+
+	// Children in character order, except under NODE_MAP.
+	private List<ArtTrieNode> childList() {
+		List<ArtTrieNode> list = new ArrayList<ArtTrieNode>(this.count);
+		appendChildren(list);
+		return list;
+	}
+
+	private void appendChildren(List<ArtTrieNode> list) {
+		switch (this.layout) {
+		case NODE4:
+		case NODE16:
+			for (int i = 0; i < this.count; i++) {
+				list.add(this.children[i]);
+			}
+			break;
+		case NODE48:
+			for (int c = 0; c < INDEXED; c++) {
+				if (this.index[c] != 0) {
+					list.add(this.children[this.index[c] - 1]);
+				}
+			}
+			break;
+		case NODE256:
+			for (int c = 0; c < INDEXED; c++) {
+				if (this.children[c] != null) {
+					list.add(this.children[c]);
+				}
+			}
+			break;
+		case NODE_MAP:
+			list.addAll(this.wide.values());
+			break;
+		}
+	}
+
+	public void loadDictionary(File dictionary) throws Exception {
+		for (String word : DictionaryReader.readWords(dictionary)) {
+			this.attach(word);
+		}
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Completions of word under this node in order of decreasing heuristic, as
+	// MTrieNode.findByHeuristic returns them from the root.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		if (word.length() == 0) {
+			return results;
+		}
+		if (isRoot() && !this.isHeuristicSet && this.maintained == null) {
+			FindByLongest.setDefaultHeuristics(this);
+		}
+		word = word.toLowerCase();
+		ArtTrieNode found = this;
+		for (int i = 0; i < word.length() && found != null; i++) {
+			found = found.getChild(word.charAt(i));
+		}
+		if (found == null) {
+			return results;
+		}
+		return new Completions().complete(found, word, maxResults);
+	}
+
+	// Completions below a node, through its children with a positive heuristic.
+	private static final class Completions extends CompletionSearch.Nodes<ArtTrieNode> {
+		private final List<ArtTrieNode> scratch = new ArrayList<ArtTrieNode>();
+
+		protected boolean isLeaf(ArtTrieNode node) {
+			return node.isLeaf();
+		}
+
+		protected int getHeuristic(ArtTrieNode node) {
+			return node.heuristic;
+		}
+
+		protected void addChildren(ArtTrieNode node, List<ArtTrieNode> children) {
+			this.scratch.clear();
+			node.appendChildren(this.scratch);
+			for (ArtTrieNode child : this.scratch) {
+				if (child.heuristic > 0) {
+					children.add(child);
+				}
+			}
+		}
+
+		protected void spell(ArtTrieNode node, char[] buf, int end) {
+			buf[end - 1] = node.value.charValue();
+		}
+	}
+
+	/**
+	 * @return LEAF, NODE4, NODE16, NODE48, NODE256 or NODE_MAP
+	 */
+	public int getLayout() {
+		return this.layout;
+	}
+
+	public boolean isLeaf() {
+		return this.count == 0;
+	}
+
+	public boolean isRoot() {
+		return this.value == null;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	public Map<Character, TrieNode> getChildren() {
+		Map<Character, TrieNode> map = new LinkedHashMap<Character, TrieNode>(this.count * 2);
+		for (ArtTrieNode child : childList()) {
+			map.put(child.value, child);
+		}
+		return map;
+	}
+
+	public int getId() {
+		return this.id;
+	}
+
+	public Character getValue() {
+		return this.value;
+	}
+
+	public int getHeuristic() {
+		return this.heuristic;
+	}
+
+	public void setHeuristic(int heuristic) {
+		this.heuristic = heuristic;
+		this.isHeuristicSet = true;
+	}
+
+	public boolean isHeuristicSet() {
+		return this.isHeuristicSet;
+	}
+
+	// Called by an IncrementalHeuristic before it sets every heuristic of this trie, which attach
+	// then keeps up to date.
+	public void setMaintainedHeuristic(IncrementalHeuristic heuristic) {
+		if (!isRoot()) {
+			throw new IllegalStateException("Only the root of a trie maintains heuristics");
+		}
+		this.maintained = heuristic;
+	}
+
+	public IncrementalHeuristic getMaintainedHeuristic() {
+		return this.maintained;
+	}
+
+	// attach has already repaired the path of every word added since the heuristics were set.
+	public void refreshHeuristics() {
+	}
+
+	public String toString() {
+		return isRoot() ? "" : this.value.toString();
+	}
+}
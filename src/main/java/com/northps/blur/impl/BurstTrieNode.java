@@ -0,0 +1,599 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.northps.blur.TrieNode;
+import com.northps.blur.util.DictionaryReader;
+import com.northps.blur.util.NodeHeap;
+
+/**
+ * Burst trie (HAT-trie style). Upper levels are ordinary trie nodes; below them, every word
+ * sharing a prefix is kept as a suffix string in one container, a small array hash whose slots
+ * are packed char arrays. A container that grows past BURST_THRESHOLD suffixes bursts into a
+ * trie node with a container per next character. Deep, sparse levels become a few contiguous
+ * arrays instead of an object per character. Words and results are as for MTrieNode.
+ *
+ * getChildren presents the uncompressed trie, with views over container contents. A container
+ * only stores heuristics for its leaves; a view of an inner node reports the largest leaf
+ * heuristic below it and ignores setHeuristic, which is the value FindByLongest and
+ * FindByShortest set anyway. Views draw their ids from the same counter as the trie nodes and
+ * keep them until the next attach, and a search started on a view runs from the root.
+ */
+public class BurstTrieNode implements TrieNode {
+	public static final int BURST_THRESHOLD = 128;
+
+	private static int guid = 0;
+
+	private final Character value;
+	private final int depth;
+	private final int id;
+	private final BurstTrieNode root;
+	private final Map<Character, Object> children = new HashMap<Character, Object>(); // BurstTrieNode or Container
+	private int heuristic = 0;
+	private boolean isHeuristicSet = false;
+
+	private static synchronized int getGuid() {
+		guid++;
+		return guid;
+	}
+
+	public BurstTrieNode() {
+		this(null, 0, null);
+	}
+
+	private BurstTrieNode(Character value, int depth, BurstTrieNode root) {
+		this.id = getGuid();
+		this.value = value;
+		this.depth = depth;
+		this.root = root == null ? this : root;
+	}
+
+	public void attach(String word) {
+		if (word.length() <= 1) {
+			return;
+		}
+		if (!isRoot()) {
+			throw new UnsupportedOperationException("Words can only be attached to the root");
+		}
+		BurstTrieNode node = this;
+		for (int i = 0; i < word.length(); i++) {
+			Character key = Character.valueOf(word.charAt(i));
+			Object child = node.children.get(key);
+			if (child instanceof BurstTrieNode) {
+				node = (BurstTrieNode) child;
+				continue;
+			}
+			Container container = (Container) child;
+			if (container == null) {
+				container = new Container();
+				node.children.put(key, container);
+			}
+			container.add(word, i + 1, word.length());
+			if (container.size() > BURST_THRESHOLD) {
+				node.children.put(key, container.burst(key, node.depth + 1, this));
+			}
+			return;
+		}
+	}
+
+	public void loadDictionary(File dictionary) throws Exception {
+		for (String word : DictionaryReader.readWords(dictionary)) {
+			this.attach(word);
+		}
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Completions of word under this node in order of decreasing heuristic, as
+	// MTrieNode.findByHeuristic returns them from the root.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		if (word.length() == 0) {
+			return results;
+		}
+		if (isRoot() && !this.isHeuristicSet) {
+			FindByLongest.setDefaultHeuristics(this);
+		}
+		word = word.toLowerCase();
+
+		// search items: trie nodes to expand, or finished words
+		List<Object> items = new ArrayList<Object>();
+		List<String> paths = new ArrayList<String>();
+		NodeHeap heap = new NodeHeap();
+		BurstTrieNode node = this;
+		for (int i = 0; i < word.length(); i++) {
+			Object child = node.children.get(Character.valueOf(word.charAt(i)));
+			if (child == null) {
+				return results;
+			}
+			if (child instanceof Container) {
+				String rest = word.substring(i + 1);
+				Container container = (Container) child;
+				if (!container.hasPrefix(rest) || container.isLeaf(rest)) {
+					return results;
+				}
+				container.pushLeaves(rest, word.substring(0, i + 1), items, paths, heap);
+				node = null;
+				break;
+			}
+			node = (BurstTrieNode) child;
+		}
+		if (node != null) {
+			items.add(node);
+			paths.add(word);
+			heap.push(node.heuristic, 0);
+		}
+
+		while (!heap.isEmpty()) {
+			int item = heap.pop();
+			if (items.get(item) instanceof String) {
+				results.add(paths.get(item));
+				if (maxResults > 0 && results.size() == maxResults) {
+					break;
+				}
+				continue;
+			}
+			BurstTrieNode next = (BurstTrieNode) items.get(item);
+			String path = paths.get(item);
+			for (Map.Entry<Character, Object> child : next.children.entrySet()) {
+				String childPath = path + child.getKey();
+				if (child.getValue() instanceof Container) {
+					((Container) child.getValue()).pushLeaves("", childPath, items, paths, heap);
+				} else {
+					BurstTrieNode trieChild = (BurstTrieNode) child.getValue();
+					if (trieChild.heuristic > 0) {
+						items.add(trieChild);
+						paths.add(childPath);
+						heap.push(trieChild.heuristic, items.size() - 1);
+					}
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * @return number of trie nodes and containers under and including this node
+	 */
+	public int[] count() {
+		int[] counts = {1, 0};
+		for (Object child : this.children.values()) {
+			if (child instanceof BurstTrieNode) {
+				int[] below = ((BurstTrieNode) child).count();
+				counts[0] += below[0];
+				counts[1] += below[1];
+			} else {
+				counts[1]++;
+			}
+		}
+		return counts;
+	}
+
+	public boolean isLeaf() {
+		return this.children.isEmpty();
+	}
+
+	public boolean isRoot() {
+		return this.value == null;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	public Map<Character, TrieNode> getChildren() {
+		Map<Character, TrieNode> views = new LinkedHashMap<Character, TrieNode>(this.children.size() * 2);
+		for (Map.Entry<Character, Object> child : this.children.entrySet()) {
+			if (child.getValue() instanceof BurstTrieNode) {
+				views.put(child.getKey(), (BurstTrieNode) child.getValue());
+			} else {
+				Container container = (Container) child.getValue();
+				views.put(child.getKey(), new ContainerView(this.root, container, 0, container.size(), 0, this.depth + 1, child.getKey()));
+			}
+		}
+		return views;
+	}
+
+	public int getId() {
+		return this.id;
+	}
+
+	public Character getValue() {
+		return this.value;
+	}
+
+	public int getHeuristic() {
+		return this.heuristic;
+	}
+
+	public void setHeuristic(int heuristic) {
+		this.heuristic = heuristic;
+		this.isHeuristicSet = true;
+	}
+
+	public boolean isHeuristicSet() {
+		return this.isHeuristicSet;
+	}
+
+	public String toString() {
+		return isRoot() ? "" : this.value.toString();
+	}
+
+	/**
+	 * Array hash of suffixes. Each slot is one char array of packed entries: the suffix length,
+	 * the leaf heuristic as two chars, then the suffix itself. Lookups hash to a slot and scan it.
+	 * Ordered walks use an index of entry references sorted by suffix, rebuilt after an add.
+	 */
+	private static final class Container {
+		private static final int SLOTS = 16;
+		private static final int HEADER = 3;
+
+		private final char[][] slots = new char[SLOTS][];
+		private final int[] used = new int[SLOTS];
+		private int size = 0;
+		private int[] order = null; // slot << 24 | position, sorted by suffix
+		private Map<Long, Integer> viewIds = null; // first ref << 32 | length of a view, to its id
+
+		// Adds word[from, length) with heuristic as its default, if it is not already here.
+		void add(String word, int from, int heuristic) {
+			int slot = slotOf(word, from, word.length());
+			if (find(slot, word, from, word.length()) >= 0) {
+				return;
+			}
+			int length = word.length() - from;
+			char[] packed = this.slots[slot];
+			if (packed == null) {
+				packed = this.slots[slot] = new char[Math.max(16, HEADER + length)];
+			} else if (this.used[slot] + HEADER + length > packed.length) {
+				packed = this.slots[slot] = Arrays.copyOf(packed, Math.max(packed.length * 2, this.used[slot] + HEADER + length));
+			}
+			int at = this.used[slot];
+			packed[at] = (char) length;
+			packed[at + 1] = (char) (heuristic >>> 16);
+			packed[at + 2] = (char) heuristic;
+			word.getChars(from, word.length(), packed, at + HEADER);
+			this.used[slot] = at + HEADER + length;
+			this.size++;
+			this.order = null;
+			this.viewIds = null;
+		}
+
+		int size() {
+			return this.size;
+		}
+
+		// Position of suffix in its slot, or -1.
+		private int find(int slot, CharSequence word, int from, int to) {
+			char[] packed = this.slots[slot];
+			int length = to - from;
+			for (int at = 0; at < this.used[slot]; at += HEADER + packed[at]) {
+				if (packed[at] != length) {
+					continue;
+				}
+				int i = 0;
+				while (i < length && packed[at + HEADER + i] == word.charAt(from + i)) {
+					i++;
+				}
+				if (i == length) {
+					return at;
+				}
+			}
+			return -1;
+		}
+
+		private static int slotOf(CharSequence word, int from, int to) {
+			int hash = 0;
+			for (int i = from; i < to; i++) {
+				hash = 31 * hash + word.charAt(i);
+			}
+			return (hash ^ (hash >>> 7)) & (SLOTS - 1);
+		}
+
+		int[] order() {
+			if (this.order == null) {
+				int[] refs = new int[this.size];
+				int n = 0;
+				for (int slot = 0; slot < SLOTS; slot++) {
+					for (int at = 0; at < this.used[slot]; at += HEADER + this.slots[slot][at]) {
+						// insertion sort, containers are small
+						int ref = (slot << 24) | at;
+						int i = n++;
+						while (i > 0 && compare(refs[i - 1], ref) > 0) {
+							refs[i] = refs[i - 1];
+							i--;
+						}
+						refs[i] = ref;
+					}
+				}
+				this.order = refs;
+			}
+			return this.order;
+		}
+
+		private int compare(int a, int b) {
+			char[] x = this.slots[a >>> 24];
+			char[] y = this.slots[b >>> 24];
+			int i = a & 0xffffff;
+			int j = b & 0xffffff;
+			int n = Math.min(x[i], y[j]);
+			for (int k = 0; k < n; k++) {
+				if (x[i + HEADER + k] != y[j + HEADER + k]) {
+					return x[i + HEADER + k] - y[j + HEADER + k];
+				}
+			}
+			return x[i] - y[j];
+		}
+
+		int length(int ref) {
+			return this.slots[ref >>> 24][ref & 0xffffff];
+		}
+
+		char charAt(int ref, int i) {
+			return this.slots[ref >>> 24][(ref & 0xffffff) + HEADER + i];
+		}
+
+		private String suffix(int ref) {
+			return new String(this.slots[ref >>> 24], (ref & 0xffffff) + HEADER, length(ref));
+		}
+
+		private boolean startsWith(int ref, String prefix) {
+			if (length(ref) < prefix.length()) {
+				return false;
+			}
+			for (int i = 0; i < prefix.length(); i++) {
+				if (charAt(ref, i) != prefix.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// First index in order() whose suffix is not less than prefix.
+		private int lowerBound(String prefix) {
+			int[] refs = order();
+			int low = 0;
+			int high = refs.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				int ref = refs[mid];
+				int n = Math.min(length(ref), prefix.length());
+				int cmp = 0;
+				for (int k = 0; k < n && cmp == 0; k++) {
+					cmp = charAt(ref, k) - prefix.charAt(k);
+				}
+				if (cmp == 0) {
+					cmp = length(ref) - prefix.length();
+				}
+				if (cmp < 0) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		// An entry is a leaf exactly when the next one in order does not extend it.
+		boolean isLeafAt(int[] refs, int i) {
+			if (i + 1 == refs.length) {
+				return true;
+			}
+			int ref = refs[i];
+			int next = refs[i + 1];
+			if (length(next) <= length(ref)) {
+				return true;
+			}
+			for (int k = 0; k < length(ref); k++) {
+				if (charAt(next, k) != charAt(ref, k)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		void setHeuristic(int ref, int heuristic) {
+			char[] packed = this.slots[ref >>> 24];
+			int at = ref & 0xffffff;
+			packed[at + 1] = (char) (heuristic >>> 16);
+			packed[at + 2] = (char) heuristic;
+		}
+
+		int getHeuristic(int ref) {
+			char[] packed = this.slots[ref >>> 24];
+			int at = ref & 0xffffff;
+			return (packed[at + 1] << 16) | packed[at + 2];
+		}
+
+		boolean hasPrefix(String prefix) {
+			int i = lowerBound(prefix);
+			return i < this.size && startsWith(this.order[i], prefix);
+		}
+
+		// True if prefix is stored and nothing extends it.
+		boolean isLeaf(String prefix) {
+			int i = lowerBound(prefix);
+			return i < this.size && length(this.order[i]) == prefix.length() && startsWith(this.order[i], prefix)
+					&& isLeafAt(this.order, i);
+		}
+
+		// Queues every leaf below prefix with a positive heuristic as a finished word.
+		void pushLeaves(String prefix, String path, List<Object> items, List<String> paths, NodeHeap heap) {
+			int[] refs = order();
+			for (int i = lowerBound(prefix); i < refs.length && startsWith(refs[i], prefix); i++) {
+				int heuristic = getHeuristic(refs[i]);
+				if (heuristic > 0 && isLeafAt(refs, i)) {
+					String suffix = suffix(refs[i]);
+					items.add(suffix);
+					paths.add(path + suffix);
+					heap.push(heuristic, items.size() - 1);
+				}
+			}
+		}
+
+		// The id of the view over the run starting at index low of order() with length characters
+		// in common. Distinct views differ in their length or in the first entry of their run.
+		int viewId(int low, int length) {
+			if (this.viewIds == null) {
+				this.viewIds = new HashMap<Long, Integer>();
+			}
+			Long key = Long.valueOf(((long) order()[low] << 32) | length);
+			Integer id = this.viewIds.get(key);
+			if (id == null) {
+				id = Integer.valueOf(getGuid());
+				this.viewIds.put(key, id);
+			}
+			return id.intValue();
+		}
+
+		// Splits into a trie node at depth with one container per first character. An empty suffix
+		// is dropped, since the word it stands for is now an inner node.
+		BurstTrieNode burst(Character value, int depth, BurstTrieNode root) {
+			BurstTrieNode node = new BurstTrieNode(value, depth, root);
+			for (int ref : order()) {
+				if (length(ref) == 0) {
+					continue;
+				}
+				String suffix = suffix(ref);
+				Character key = Character.valueOf(suffix.charAt(0));
+				Container child = (Container) node.children.get(key);
+				if (child == null) {
+					child = new Container();
+					node.children.put(key, child);
+				}
+				child.add(suffix, 1, getHeuristic(ref));
+			}
+			return node;
+		}
+	}
+
+	// A node of the uncompressed trie inside a container: the run [low, high) of its sorted
+	// suffixes that share the first length characters. Views are only valid until the next attach.
+	private static final class ContainerView implements TrieNode {
+		private final BurstTrieNode root;
+		private final Container container;
+		private final int low;
+		private final int high;
+		private final int length;
+		private final int depth;
+		private final Character value;
+
+		ContainerView(BurstTrieNode root, Container container, int low, int high, int length, int depth, Character value) {
+			this.root = root;
+			this.container = container;
+			this.low = low;
+			this.high = high;
+			this.length = length;
+			this.depth = depth;
+			this.value = value;
+		}
+
+		// The first suffix of a run is the shortest, and equals the prefix when a word ends here.
+		public boolean isLeaf() {
+			return this.high - this.low == 1 && this.container.length(this.container.order()[this.low]) == this.length;
+		}
+
+		public boolean isRoot() {
+			return false;
+		}
+
+		public int getDepth() {
+			return this.depth;
+		}
+
+		public Map<Character, TrieNode> getChildren() {
+			int[] refs = this.container.order();
+			Map<Character, TrieNode> views = new LinkedHashMap<Character, TrieNode>();
+			int i = this.low;
+			if (this.container.length(refs[i]) == this.length) {
+				i++;
+			}
+			while (i < this.high) {
+				char c = this.container.charAt(refs[i], this.length);
+				int from = i;
+				while (i < this.high && this.container.charAt(refs[i], this.length) == c) {
+					i++;
+				}
+				Character key = Character.valueOf(c);
+				views.put(key, new ContainerView(this.root, this.container, from, i, this.length + 1, this.depth + 1, key));
+			}
+			return views;
+		}
+
+		public int getId() {
+			return this.container.viewId(this.low, this.length);
+		}
+
+		public Character getValue() {
+			return this.value;
+		}
+
+		public int getHeuristic() {
+			int[] refs = this.container.order();
+			int max = 0;
+			for (int i = this.low; i < this.high; i++) {
+				if (this.container.isLeafAt(refs, i)) {
+					max = Math.max(max, this.container.getHeuristic(refs[i]));
+				}
+			}
+			return max;
+		}
+
+		public void setHeuristic(int heuristic) {
+			if (isLeaf()) {
+				this.container.setHeuristic(this.container.order()[this.low], heuristic);
+			}
+		}
+
+		public void attach(String word) {
+			throw new UnsupportedOperationException("Words can only be attached to the root");
+		}
+
+		public void loadDictionary(File dictionary) throws Exception {
+			throw new UnsupportedOperationException("Words can only be attached to the root");
+		}
+
+		public List<String> findByHeuristic(String word) {
+			return findByHeuristic(word, 0);
+		}
+
+		public List<String> findByHeuristic(String word, int maxResults) {
+			return this.root.findByHeuristic(word, maxResults);
+		}
+
+		public String toString() {
+			return this.value.toString();
+		}
+	}
+}
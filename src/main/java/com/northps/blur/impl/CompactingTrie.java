@@ -0,0 +1,351 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+import com.northps.blur.util.CompletionSearch;
+
+/**
+ * A DoubleArrayTrie that words can be removed from and reweighted while it is being searched.
+ *
+ * The double array cannot shrink, so a removed word is a tombstone: its node's heuristic drops
+ * to 0 and the heuristics of its ancestors are repaired up to the first one that does not
+ * change. A branch left without live words has heuristic 0 and is never entered by a search,
+ * which prunes it; a word whose longer words are all removed becomes a completion itself, as
+ * it would be in a trie built without them. update gives a word a weight that replaces its
+ * length as its leaf heuristic.
+ *
+ * Once tombstones exceed a share of the words the trie was built with, the live words are
+ * rebuilt into a new double array on an Executor, changes made meanwhile are replayed on it,
+ * and it replaces the old one. Searches read the current trie through a volatile reference and
+ * never wait; writers are serialized on this object.
+ *
+ * The DoubleArrayTrie passed in is taken over, and its heuristics, which must be the
+ * FindByLongest values it was built with, are changed in place. Words are those of the
+ * DoubleArrayTrie, and completions are otherwise as for MTrieNode.
+ */
+public class CompactingTrie {
+	public static final double DEFAULT_THRESHOLD = 0.1;
+
+	private static final int REMOVED = -1; // weight of a removed word
+	private static final Executor COMPACTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "blur-compactor");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final double threshold;
+	private final Executor executor;
+	private volatile Generation current;
+	private boolean compacting = false;
+	private List<Change> changes = null; // made during a compaction, to replay on its trie
+
+	public CompactingTrie(DoubleArrayTrie trie) {
+		this(trie, DEFAULT_THRESHOLD, COMPACTOR);
+	}
+
+	// Compacts on executor once removed words exceed threshold times the words the trie was built with.
+	public CompactingTrie(DoubleArrayTrie trie, double threshold, Executor executor) {
+		this.threshold = threshold;
+		this.executor = executor;
+		this.current = new Generation(trie);
+	}
+
+	public static CompactingTrie load(File dictionary) throws Exception {
+		return new CompactingTrie(DoubleArrayTrie.load(dictionary));
+	}
+
+	// A double array, with the weights of its words and the counts of live and removed ones.
+	private static final class Generation {
+		final DoubleArrayTrie trie;
+		final int[] weights; // 0 for the default, REMOVED for tombstones
+		final int builtWords;
+		int words;
+		int tombstones = 0;
+
+		Generation(DoubleArrayTrie trie) {
+			this.trie = trie;
+			this.weights = new int[trie.getCapacity()];
+			int count = 0;
+			for (int node = 0; node < this.weights.length; node++) {
+				if (trie.isWord(node)) {
+					count++;
+				}
+			}
+			this.builtWords = count;
+			this.words = count;
+		}
+	}
+
+	private static final class Change {
+		final String word;
+		final int weight; // REMOVED for a removal
+
+		Change(String word, int weight) {
+			this.word = word;
+			this.weight = weight;
+		}
+	}
+
+	public synchronized boolean remove(String word) {
+		word = word.toLowerCase();
+		Generation generation = this.current;
+		if (!apply(generation, word, REMOVED)) {
+			return false;
+		}
+		if (this.changes != null) {
+			this.changes.add(new Change(word, REMOVED));
+		}
+		// the volatile write publishes the repaired heuristics to searches that start after it
+		this.current = generation;
+		if (!this.compacting) {
+			scheduleCompaction(generation);
+		}
+		return true;
+	}
+
+	// Starts a compaction on the executor if generation has too many tombstones. Called holding the lock.
+	private void scheduleCompaction(Generation generation) {
+		if (generation.tombstones <= this.threshold * generation.builtWords) {
+			return;
+		}
+		this.compacting = true;
+		try {
+			this.executor.execute(new Runnable() {
+				public void run() {
+					rebuild();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			this.compacting = false;
+		}
+	}
+
+	// Gives word a positive weight to rank it by instead of its length. Returns false if it is not in the trie.
+	public synchronized boolean update(String word, int weight) {
+		if (weight <= 0) {
+			throw new IllegalArgumentException("Weights must be positive");
+		}
+		word = word.toLowerCase();
+		Generation generation = this.current;
+		if (!apply(generation, word, weight)) {
+			return false;
+		}
+		if (this.changes != null) {
+			this.changes.add(new Change(word, weight));
+		}
+		this.current = generation;
+		return true;
+	}
+
+	// Removes word, or sets its weight, and repairs the heuristics on its path.
+	private static boolean apply(Generation generation, String word, int weight) {
+		DoubleArrayTrie trie = generation.trie;
+		int node = trie.walk(DoubleArrayTrie.ROOT, word);
+		if (node == DoubleArrayTrie.NONE || !trie.isWord(node) || generation.weights[node] == REMOVED) {
+			return false;
+		}
+		generation.weights[node] = weight;
+		if (weight == REMOVED) {
+			generation.words--;
+			generation.tombstones++;
+		}
+		for (int n = node; n != DoubleArrayTrie.ROOT; n = trie.getParent(n)) {
+			int value = value(generation, n);
+			if (value == trie.getHeuristic(n) && n != node) {
+				break;
+			}
+			trie.setHeuristic(n, value);
+		}
+		return true;
+	}
+
+	// FindByLongest's value with weights and tombstones: the largest heuristic of the children, or
+	// for a live word without live children its weight or else its length.
+	private static int value(Generation generation, int node) {
+		DoubleArrayTrie trie = generation.trie;
+		int max = 0;
+		for (int i = 0; i < trie.getChildCount(node); i++) {
+			max = Math.max(max, trie.getHeuristic(trie.getChildAt(node, i)));
+		}
+		if (max > 0 || !trie.isWord(node) || generation.weights[node] == REMOVED) {
+			return max;
+		}
+		return generation.weights[node] > 0 ? generation.weights[node] : trie.getDepth(node);
+	}
+
+	// Rebuilds the trie from its live words in the calling thread. Returns false if a compaction is already running.
+	public boolean compact() {
+		synchronized (this) {
+			if (this.compacting) {
+				return false;
+			}
+			this.compacting = true;
+		}
+		rebuild();
+		return true;
+	}
+
+	private void rebuild() {
+		try {
+			List<String> words = new ArrayList<String>();
+			Map<String, Integer> weights = new HashMap<String, Integer>();
+			synchronized (this) {
+				Generation generation = this.current;
+				for (int node = 0; node < generation.weights.length; node++) {
+					if (generation.trie.isWord(node) && generation.weights[node] != REMOVED) {
+						String word = generation.trie.getPrefix(node);
+						words.add(word);
+						if (generation.weights[node] > 0) {
+							weights.put(word, Integer.valueOf(generation.weights[node]));
+						}
+					}
+				}
+				this.changes = new ArrayList<Change>();
+			}
+
+			// searches and writers carry on with the old trie meanwhile
+			Generation next = new Generation(DoubleArrayTrie.build(words));
+			for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+				apply(next, weight.getKey(), weight.getValue().intValue());
+			}
+
+			synchronized (this) {
+				for (Change change : this.changes) {
+					apply(next, change.word, change.weight);
+				}
+				this.current = next;
+			}
+		} finally {
+			synchronized (this) {
+				this.changes = null;
+				this.compacting = false;
+				// removals replayed on the new trie can be enough for another round
+				scheduleCompaction(this.current);
+			}
+		}
+	}
+
+	public synchronized boolean isCompacting() {
+		return this.compacting;
+	}
+
+	public boolean contains(String word) {
+		Generation generation = this.current;
+		int node = generation.trie.walk(DoubleArrayTrie.ROOT, word.toLowerCase());
+		return node != DoubleArrayTrie.NONE && generation.trie.isWord(node) && generation.weights[node] != REMOVED;
+	}
+
+	// The current double array, including tombstoned nodes until the next compaction.
+	public DoubleArrayTrie getTrie() {
+		return this.current.trie;
+	}
+
+	public int getWordCount() {
+		return this.current.words;
+	}
+
+	public int getTombstoneCount() {
+		return this.current.tombstones;
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Completions of word in order of decreasing heuristic, as DoubleArrayTrie.findByHeuristic
+	// returns them, leaving out removed words.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		if (word.length() == 0) {
+			return results;
+		}
+		Generation generation = this.current;
+		int found = generation.trie.walk(DoubleArrayTrie.ROOT, word.toLowerCase());
+		if (found == DoubleArrayTrie.NONE) {
+			return results;
+		}
+		return new Completions(generation).complete(found, word.toLowerCase(), maxResults);
+	}
+
+	// Completions below a node of one generation. A node whose children have all been removed
+	// is a leaf, and is only reported while it still holds a live word: checking the word itself
+	// keeps a repair in progress from reporting a bare prefix.
+	private static final class Completions extends CompletionSearch {
+		private final Generation generation;
+
+		Completions(Generation generation) {
+			this.generation = generation;
+		}
+
+		protected boolean isLeaf(int node) {
+			return !hasLiveChild(this.generation.trie, node);
+		}
+
+		protected void expand(int node) {
+			DoubleArrayTrie trie = this.generation.trie;
+			for (int i = 0; i < trie.getChildCount(node); i++) {
+				int child = trie.getChildAt(node, i);
+				if (trie.getHeuristic(child) > 0) {
+					add(child, trie.getHeuristic(child));
+				}
+			}
+		}
+
+		protected void spell(int node, char[] buf, int end) {
+			buf[end - 1] = this.generation.trie.getLabel(node);
+		}
+
+		protected boolean isCompletion(int node) {
+			return this.generation.trie.isWord(node) && this.generation.weights[node] != REMOVED;
+		}
+	}
+
+	private static boolean hasLiveChild(DoubleArrayTrie trie, int node) {
+		for (int i = 0; i < trie.getChildCount(node); i++) {
+			if (trie.getHeuristic(trie.getChildAt(node, i)) > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public String toString() {
+		Generation generation = this.current;
+		return "CompactingTrie[words=" + generation.words + ", tombstones=" + generation.tombstones
+				+ ", " + generation.trie + "]";
+	}
+}
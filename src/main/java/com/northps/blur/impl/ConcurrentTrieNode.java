@@ -0,0 +1,272 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import com.northps.blur.IncrementalHeuristic;
+import com.northps.blur.MaintainedHeuristics;
+import com.northps.blur.TrieNode;
+import com.northps.blur.util.CompletionSearch;
+import com.northps.blur.util.DictionaryReader;
+
+/**
+ * Trie node that words can be attached to while other threads search it, without locks.
+ *
+ * A node's children are an immutable array sorted by character, replaced as a whole by
+ * compare-and-set. A new branch, from the first missing character to the end of the word, is
+ * built completely before it is published, so a reader sees a node either without the branch
+ * or with all of it. Two writers racing on the same node retry against the array that won.
+ * Ids come from an AtomicInteger.
+ *
+ * Heuristics are kept up to date by attach as FindByLongest would set them: a node holds the
+ * length of the longest word through it, raised with compare-and-set after the branch is
+ * published, so FindByLongest leaves them alone and another heuristic cannot be set on the
+ * whole trie. Words and results are as for MTrieNode.
+ */
+public class ConcurrentTrieNode implements TrieNode, MaintainedHeuristics {
+	private static final ConcurrentTrieNode[] NO_CHILDREN = new ConcurrentTrieNode[0];
+	private static final AtomicInteger GUID = new AtomicInteger();
+	private static final FindByLongest MAINTAINED = new FindByLongest();
+	private static final AtomicReferenceFieldUpdater<ConcurrentTrieNode, ConcurrentTrieNode[]> CHILDREN =
+			AtomicReferenceFieldUpdater.newUpdater(ConcurrentTrieNode.class, ConcurrentTrieNode[].class, "children");
+	private static final AtomicIntegerFieldUpdater<ConcurrentTrieNode> HEURISTIC =
+			AtomicIntegerFieldUpdater.newUpdater(ConcurrentTrieNode.class, "heuristic");
+
+	private final Character value;
+	private final int depth;
+	private final int id;
+	private volatile ConcurrentTrieNode[] children = NO_CHILDREN;
+	private volatile int heuristic = 0;
+
+	public ConcurrentTrieNode() {
+		this(null, 0);
+	}
+
+	private ConcurrentTrieNode(Character value, int depth) {
+		this.id = GUID.incrementAndGet();
+		this.value = value;
+		this.depth = depth;
+	}
+
+	public void attach(String word) {
+		if (word.length() <= 1) {
+			return;
+		}
+		if (!isRoot()) {
+			throw new UnsupportedOperationException("Words can only be attached to the root");
+		}
+		ConcurrentTrieNode node = this;
+		int i = 0;
+		while (i < word.length()) {
+			ConcurrentTrieNode[] current = node.children;
+			int slot = search(current, word.charAt(i));
+			if (slot >= 0) {
+				node = current[slot];
+				i++;
+				continue;
+			}
+			ConcurrentTrieNode branch = branch(word, i, node.depth + 1);
+			slot = -slot - 1;
+			ConcurrentTrieNode[] grown = new ConcurrentTrieNode[current.length + 1];
+			System.arraycopy(current, 0, grown, 0, slot);
+			grown[slot] = branch;
+			System.arraycopy(current, slot, grown, slot + 1, current.length - slot);
+			if (CHILDREN.compareAndSet(node, current, grown)) {
+				break;
+			}
+			// another writer changed the children first, look again
+		}
+
+		// the whole path exists now, whoever created it
+		node = this;
+		for (i = 0; i < word.length(); i++) {
+			node = node.getChild(word.charAt(i));
+			node.raiseHeuristic(word.length());
+		}
+	}
+
+	// Unpublished nodes for word from start, each with the heuristic of the new leaf.
+	private static ConcurrentTrieNode branch(String word, int start, int depth) {
+		ConcurrentTrieNode top = new ConcurrentTrieNode(Character.valueOf(word.charAt(start)), depth);
+		ConcurrentTrieNode node = top;
+		for (int i = start + 1; i < word.length(); i++) {
+			ConcurrentTrieNode child = new ConcurrentTrieNode(Character.valueOf(word.charAt(i)), node.depth + 1);
+			node.heuristic = word.length();
+			node.children = new ConcurrentTrieNode[] {child};
+			node = child;
+		}
+		node.heuristic = word.length();
+		return top;
+	}
+
+	private void raiseHeuristic(int heuristic) {
+		while (true) {
+			int current = this.heuristic;
+			if (current >= heuristic || HEURISTIC.compareAndSet(this, current, heuristic)) {
+				return;
+			}
+		}
+	}
+
+	// Slot of the child on c, or -(insertion point) - 1.
+	private static int search(ConcurrentTrieNode[] children, char c) {
+		int low = 0;
+		int high = children.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char label = children[mid].value.charValue();
+			if (label < c) {
+				low = mid + 1;
+			} else if (label > c) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -low - 1;
+	}
+
+	// Returns the child on c, or null.
+	public ConcurrentTrieNode getChild(char c) {
+		ConcurrentTrieNode[] current = this.children;
+		int slot = search(current, c);
+		return slot >= 0 ? current[slot] : null;
+	}
+
+	public void loadDictionary(File dictionary) throws Exception {
+		for (String word : DictionaryReader.readWords(dictionary)) {
+			this.attach(word);
+		}
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Completions of word under this node in order of decreasing heuristic, as
+	// MTrieNode.findByHeuristic returns them from the root. Each node's children are read once,
+	// so words attached during the search are either found whole or not at all.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		if (word.length() == 0) {
+			return results;
+		}
+		word = word.toLowerCase();
+		ConcurrentTrieNode found = this;
+		for (int i = 0; i < word.length() && found != null; i++) {
+			found = found.getChild(word.charAt(i));
+		}
+		if (found == null) {
+			return results;
+		}
+		return new Completions().complete(found, word, maxResults);
+	}
+
+	// Completions below a node, through the children it has when it is expanded.
+	private static final class Completions extends CompletionSearch.Nodes<ConcurrentTrieNode> {
+		protected boolean isLeaf(ConcurrentTrieNode node) {
+			return node.children.length == 0;
+		}
+
+		protected int getHeuristic(ConcurrentTrieNode node) {
+			return node.heuristic;
+		}
+
+		protected void addChildren(ConcurrentTrieNode node, List<ConcurrentTrieNode> children) {
+			for (ConcurrentTrieNode child : node.children) {
+				children.add(child);
+			}
+		}
+
+		protected void spell(ConcurrentTrieNode node, char[] buf, int end) {
+			buf[end - 1] = node.value.charValue();
+		}
+	}
+
+	public boolean isLeaf() {
+		return this.children.length == 0;
+	}
+
+	public boolean isRoot() {
+		return this.value == null;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	// A snapshot of the children at the time of the call.
+	public Map<Character, TrieNode> getChildren() {
+		ConcurrentTrieNode[] current = this.children;
+		Map<Character, TrieNode> map = new LinkedHashMap<Character, TrieNode>(current.length * 2);
+		for (ConcurrentTrieNode child : current) {
+			map.put(child.value, child);
+		}
+		return map;
+	}
+
+	public int getId() {
+		return this.id;
+	}
+
+	public Character getValue() {
+		return this.value;
+	}
+
+	public int getHeuristic() {
+		return this.heuristic;
+	}
+
+	// Replaces the heuristic, which attach will only ever raise from then on.
+	public void setHeuristic(int heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	public IncrementalHeuristic getMaintainedHeuristic() {
+		return MAINTAINED;
+	}
+
+	public void setMaintainedHeuristic(IncrementalHeuristic heuristic) {
+		if (!(heuristic instanceof FindByLongest)) {
+			throw new UnsupportedOperationException("attach only keeps longest first heuristics up to date");
+		}
+	}
+
+	// attach has already raised every heuristic on the path of a published word.
+	public void refreshHeuristics() {
+	}
+
+	public String toString() {
+		return isRoot() ? "" : this.value.toString();
+	}
+}
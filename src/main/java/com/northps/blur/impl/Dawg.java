@@ -0,0 +1,371 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.northps.blur.TrieNode;
+import com.northps.blur.util.CompletionSearch;
+import com.northps.blur.util.DictionaryReader;
+
+/**
+ * Minimal acyclic automaton (DAWG) over the same words as MTrieNode, built in one pass over
+ * sorted input with Daciuk's incremental algorithm. Words sharing a suffix share its states,
+ * so the automaton is far smaller than a trie.
+ *
+ * A state can be reached by many prefixes, so it cannot hold a trie heuristic. Instead each
+ * transition carries the longest and the shortest completion reachable through it, counted in
+ * characters from its source. Both depend only on the suffix and survive minimization, and
+ * prefix length plus either weight is exactly the FindByLongest or FindByShortest order, which
+ * makes top-k completion a best-first search.
+ *
+ * As in the tries, completions are the words that are not a prefix of another word, which all
+ * end in the single state without transitions.
+ */
+public class Dawg {
+	public static final int NONE = -1;
+
+	private final int root;
+	private final int[] transStart; // transitions of state s are [transStart[s], transStart[s + 1])
+	private final char[] labels; // sorted within each state
+	private final int[] targets;
+	private final int[] longest;
+	private final int[] shortest;
+	private final BitSet finals;
+
+	private Dawg(int root, int[] transStart, char[] labels, int[] targets, int[] longest, int[] shortest, BitSet finals) {
+		this.root = root;
+		this.transStart = transStart;
+		this.labels = labels;
+		this.targets = targets;
+		this.longest = longest;
+		this.shortest = shortest;
+		this.finals = finals;
+	}
+
+	public static Dawg load(File dictionary) throws Exception {
+		return build(DictionaryReader.readWords(dictionary));
+	}
+
+	// Words shorter than two characters are skipped, as MTrieNode.attach does.
+	public static Dawg build(Collection<String> input) {
+		TreeSet<String> unique = new TreeSet<String>();
+		for (String word : input) {
+			if (word.length() > 1) {
+				unique.add(word);
+			}
+		}
+		Builder builder = new Builder();
+		for (String word : unique) {
+			builder.add(word);
+		}
+		return builder.finish();
+	}
+
+	/**
+	 * @return a TrieNode view of the automaton, unfolded into the trie it accepts
+	 */
+	public TrieNode getRootNode() {
+		return new DawgNode(this, this.root, 0, null);
+	}
+
+	public int getRoot() {
+		return this.root;
+	}
+
+	// Returns the state reached from state on c, or NONE.
+	public int getTransition(int state, char c) {
+		int low = this.transStart[state];
+		int high = this.transStart[state + 1] - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (this.labels[mid] < c) {
+				low = mid + 1;
+			} else if (this.labels[mid] > c) {
+				high = mid - 1;
+			} else {
+				return this.targets[mid];
+			}
+		}
+		return NONE;
+	}
+
+	public int walk(int state, CharSequence prefix) {
+		for (int i = 0; i < prefix.length() && state != NONE; i++) {
+			state = getTransition(state, prefix.charAt(i));
+		}
+		return state;
+	}
+
+	public boolean contains(String word) {
+		int state = walk(this.root, word);
+		return state != NONE && this.finals.get(state);
+	}
+
+	public int getTransitionCount(int state) {
+		return this.transStart[state + 1] - this.transStart[state];
+	}
+
+	public char getLabel(int state, int i) {
+		return this.labels[this.transStart[state] + i];
+	}
+
+	public int getTarget(int state, int i) {
+		return this.targets[this.transStart[state] + i];
+	}
+
+	public boolean isFinal(int state) {
+		return this.finals.get(state);
+	}
+
+	// Length of the longest completion from state, 0 at the state without transitions.
+	public int getLongest(int state) {
+		int max = 0;
+		for (int t = this.transStart[state]; t < this.transStart[state + 1]; t++) {
+			max = Math.max(max, this.longest[t]);
+		}
+		return max;
+	}
+
+	public int getShortest(int state) {
+		int min = this.transStart[state] == this.transStart[state + 1] ? 0 : Integer.MAX_VALUE;
+		for (int t = this.transStart[state]; t < this.transStart[state + 1]; t++) {
+			min = Math.min(min, this.shortest[t]);
+		}
+		return min;
+	}
+
+	public int getStateCount() {
+		return this.transStart.length - 1;
+	}
+
+	public int getTransitionCount() {
+		return this.labels.length;
+	}
+
+	public long getMemoryUsage() {
+		return 4L * (this.transStart.length + this.targets.length + this.longest.length + this.shortest.length)
+				+ 2L * this.labels.length + this.finals.size() / 8;
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Completions of word longest first, as MTrieNode.findByHeuristic returns them under FindByLongest.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		return complete(word, maxResults, true);
+	}
+
+	// Top maxResults completions of prefix, longest or shortest first; 0 returns them all.
+	public List<String> complete(String prefix, int maxResults, boolean longestFirst) {
+		List<String> results = new ArrayList<String>();
+		if (prefix.length() == 0) {
+			return results;
+		}
+		prefix = prefix.toLowerCase();
+		int start = walk(this.root, prefix);
+		if (start == NONE) {
+			return results;
+		}
+		return new Completions(longestFirst).complete(-1 - start, prefix, maxResults);
+	}
+
+	// Completions below a state. Search nodes are the transitions taken, so that a state shared
+	// by several paths is spelled by the path that reached it, and -1 - start stands for the
+	// start state. A transition is ranked by the exact total length of the best completion
+	// through it.
+	private final class Completions extends CompletionSearch {
+		private final boolean longestFirst;
+
+		Completions(boolean longestFirst) {
+			this.longestFirst = longestFirst;
+		}
+
+		private int getState(int node) {
+			return node < 0 ? -1 - node : Dawg.this.targets[node];
+		}
+
+		protected boolean isLeaf(int node) {
+			return getTransitionCount(getState(node)) == 0;
+		}
+
+		protected void expand(int node) {
+			int state = getState(node);
+			for (int t = Dawg.this.transStart[state]; t < Dawg.this.transStart[state + 1]; t++) {
+				int total = getSpelledLength() + (this.longestFirst ? Dawg.this.longest[t] : Dawg.this.shortest[t]);
+				add(t, this.longestFirst ? total : -total);
+			}
+		}
+
+		protected void spell(int node, char[] buf, int end) {
+			buf[end - 1] = Dawg.this.labels[node];
+		}
+	}
+
+	public String toString() {
+		return "Dawg[states=" + getStateCount() + ", transitions=" + getTransitionCount()
+				+ ", bytes=" + getMemoryUsage() + "]";
+	}
+
+	// Daciuk, Mihov, Watson and Watson, incremental construction from sorted data. States on the
+	// path of the last word stay open; once a later word leaves the path they are frozen, merging
+	// with an equivalent registered state if there is one.
+	private static final class Builder {
+		private final Map<String, Integer> register = new HashMap<String, Integer>();
+		private final List<OpenState> path = new ArrayList<OpenState>();
+		private String previous = "";
+
+		private int[] transStart = new int[1024];
+		private char[] labels = new char[1024];
+		private int[] targets = new int[1024];
+		private int[] longest = new int[1024];
+		private int[] shortest = new int[1024];
+		private final BitSet finals = new BitSet();
+		private int states = 0;
+		private int transitions = 0;
+
+		Builder() {
+			this.path.add(new OpenState());
+		}
+
+		void add(String word) {
+			int common = 0;
+			while (common < word.length() && common < this.previous.length()
+					&& word.charAt(common) == this.previous.charAt(common)) {
+				common++;
+			}
+			freezeDownTo(common);
+			for (int i = common + 1; i <= word.length(); i++) {
+				if (i < this.path.size()) {
+					this.path.get(i).clear();
+				} else {
+					this.path.add(new OpenState());
+				}
+			}
+			this.path.get(word.length()).isFinal = true;
+			this.previous = word;
+		}
+
+		Dawg finish() {
+			freezeDownTo(0);
+			int root = freeze(this.path.get(0));
+			this.transStart[this.states] = this.transitions;
+			return new Dawg(root, Arrays.copyOf(this.transStart, this.states + 1),
+					Arrays.copyOf(this.labels, this.transitions), Arrays.copyOf(this.targets, this.transitions),
+					Arrays.copyOf(this.longest, this.transitions), Arrays.copyOf(this.shortest, this.transitions),
+					this.finals);
+		}
+
+		// Freezes the open states of the previous word deeper than depth.
+		private void freezeDownTo(int depth) {
+			for (int i = this.previous.length(); i > depth; i--) {
+				int id = freeze(this.path.get(i));
+				this.path.get(i - 1).add(this.previous.charAt(i - 1), id);
+			}
+		}
+
+		private int freeze(OpenState state) {
+			StringBuilder key = new StringBuilder(1 + 3 * state.count);
+			key.append(state.isFinal ? '1' : '0');
+			for (int i = 0; i < state.count; i++) {
+				key.append(state.labels[i]).append((char) (state.targets[i] >>> 16)).append((char) state.targets[i]);
+			}
+			String signature = key.toString();
+			Integer existing = this.register.get(signature);
+			if (existing != null) {
+				return existing.intValue();
+			}
+
+			int id = this.states++;
+			if (id + 1 >= this.transStart.length) {
+				this.transStart = Arrays.copyOf(this.transStart, this.transStart.length * 2);
+			}
+			this.transStart[id] = this.transitions;
+			if (state.isFinal) {
+				this.finals.set(id);
+			}
+			for (int i = 0; i < state.count; i++) {
+				if (this.transitions == this.labels.length) {
+					int grown = this.transitions * 2;
+					this.labels = Arrays.copyOf(this.labels, grown);
+					this.targets = Arrays.copyOf(this.targets, grown);
+					this.longest = Arrays.copyOf(this.longest, grown);
+					this.shortest = Arrays.copyOf(this.shortest, grown);
+				}
+				// targets are always frozen first, so their weights are known
+				int target = state.targets[i];
+				int max = 0;
+				int min = this.transStart[target] == end(target) ? 0 : Integer.MAX_VALUE;
+				for (int t = this.transStart[target]; t < end(target); t++) {
+					max = Math.max(max, this.longest[t]);
+					min = Math.min(min, this.shortest[t]);
+				}
+				this.labels[this.transitions] = state.labels[i];
+				this.targets[this.transitions] = target;
+				this.longest[this.transitions] = max + 1;
+				this.shortest[this.transitions] = min + 1;
+				this.transitions++;
+			}
+			this.register.put(signature, Integer.valueOf(id));
+			return id;
+		}
+
+		// End of the transitions of an already frozen state.
+		private int end(int state) {
+			return state + 1 < this.states ? this.transStart[state + 1] : this.transitions;
+		}
+	}
+
+	private static final class OpenState {
+		private char[] labels = new char[4];
+		private int[] targets = new int[4];
+		private int count = 0;
+		private boolean isFinal = false;
+
+		void add(char label, int target) {
+			if (this.count == this.labels.length) {
+				this.labels = Arrays.copyOf(this.labels, this.count * 2);
+				this.targets = Arrays.copyOf(this.targets, this.count * 2);
+			}
+			this.labels[this.count] = label;
+			this.targets[this.count] = target;
+			this.count++;
+		}
+
+		void clear() {
+			this.count = 0;
+			this.isFinal = false;
+		}
+	}
+}
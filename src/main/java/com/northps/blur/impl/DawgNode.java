@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.northps.blur.IncrementalHeuristic;
+import com.northps.blur.MaintainedHeuristics;
+import com.northps.blur.TrieNode;
+
+/**
+ * TrieNode view of a Dawg, unfolded into the trie it accepts. A view is one path into the
+ * automaton, so views reached by different prefixes can share a state and an id.
+ *
+ * Heuristics come from the automaton's weights: getHeuristic is the length of the longest
+ * completion below the node, which is the value FindByLongest would compute, and FindByLongest
+ * leaves it as it is. A shared state cannot hold a per path value, so setHeuristic throws; use
+ * Dawg.complete with longestFirst false for shortest first completions.
+ */
+public class DawgNode implements TrieNode, MaintainedHeuristics {
+	private static final FindByLongest MAINTAINED = new FindByLongest();
+
+	private final Dawg dawg;
+	private final int state;
+	private final int depth;
+	private final Character value;
+
+	DawgNode(Dawg dawg, int state, int depth, Character value) {
+		this.dawg = dawg;
+		this.state = state;
+		this.depth = depth;
+		this.value = value;
+	}
+
+	public boolean isLeaf() {
+		return this.dawg.getTransitionCount(this.state) == 0;
+	}
+
+	public boolean isRoot() {
+		return this.value == null;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	public Map<Character, TrieNode> getChildren() {
+		int count = this.dawg.getTransitionCount(this.state);
+		Map<Character, TrieNode> children = new LinkedHashMap<Character, TrieNode>(count * 2);
+		for (int i = 0; i < count; i++) {
+			Character label = Character.valueOf(this.dawg.getLabel(this.state, i));
+			children.put(label, new DawgNode(this.dawg, this.dawg.getTarget(this.state, i), this.depth + 1, label));
+		}
+		return children;
+	}
+
+	// The automaton state, shared by every path that reaches it.
+	public int getId() {
+		return this.state;
+	}
+
+	public Character getValue() {
+		return this.value;
+	}
+
+	public int getHeuristic() {
+		return isRoot() ? 0 : this.depth + this.dawg.getLongest(this.state);
+	}
+
+	public void setHeuristic(int heuristic) {
+		throw new UnsupportedOperationException("Heuristics are fixed by the automaton, see Dawg.complete");
+	}
+
+	public IncrementalHeuristic getMaintainedHeuristic() {
+		return MAINTAINED;
+	}
+
+	public void setMaintainedHeuristic(IncrementalHeuristic heuristic) {
+		throw new UnsupportedOperationException("Heuristics are fixed by the automaton, see Dawg.complete");
+	}
+
+	public void refreshHeuristics() {
+	}
+
+	public void attach(String word) {
+		throw new UnsupportedOperationException("A Dawg is built once from sorted input, see Dawg.build");
+	}
+
+	public void loadDictionary(File dictionary) throws Exception {
+		throw new UnsupportedOperationException("A Dawg is built once from sorted input, see Dawg.load");
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return this.dawg.findByHeuristic(word);
+	}
+
+	public List<String> findByHeuristic(String word, int maxResults) {
+		return this.dawg.findByHeuristic(word, maxResults);
+	}
+
+	public String toString() {
+		return isRoot() ? "" : this.value.toString();
+	}
+}
@@ -0,0 +1,505 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import com.northps.blur.TrieNode;
+import com.northps.blur.util.CompletionSearch;
+import com.northps.blur.util.DictionaryReader;
+
+/**
+ * Static trie stored as a double array. A node is an int; its child on character c sits at
+ * base[node] + code(c), and is only valid when check[] of that slot points back at the node.
+ * Labels, parents, child lists and heuristics live in arrays parallel to base/check, so a
+ * walk is array indexing and there is no object per node.
+ *
+ * The trie holds the same words MTrieNode would: lines are lowercased and words shorter than
+ * two characters are skipped. Results are still only reported at leaves. Heuristics start out
+ * as FindByLongest would set them, and can be replaced through the TrieNode facade returned by
+ * getRootNode(). The trie cannot be changed after it is built.
+ */
+public class DoubleArrayTrie {
+	public static final int ROOT = 0;
+	public static final int NONE = -1;
+
+	private static final int FREE = -2; // check value of an unused slot
+
+	private final int[] base;
+	private final int[] check;
+	private final char[] labels;
+	private final int[] heuristics;
+	private final int[] childStart; // offset of each node's children in childList, ordered by code
+	private final int[] childCount;
+	private final int[] childList;
+	private final BitSet words; // nodes where an input word ends
+	private final int[] codes; // character to code, 0 for characters not in the trie
+	private final int size;
+
+	private DoubleArrayTrie(int[] base, int[] check, char[] labels, int[] heuristics, int[] childStart,
+			int[] childCount, int[] childList, BitSet words, int[] codes, int size) {
+		this.base = base;
+		this.check = check;
+		this.labels = labels;
+		this.heuristics = heuristics;
+		this.childStart = childStart;
+		this.childCount = childCount;
+		this.childList = childList;
+		this.words = words;
+		this.codes = codes;
+		this.size = size;
+	}
+
+	public static DoubleArrayTrie load(File dictionary) throws Exception {
+		return build(DictionaryReader.readWords(dictionary));
+	}
+
+	public static DoubleArrayTrie build(Collection<String> input) {
+		TreeSet<String> unique = new TreeSet<String>();
+		for (String word : input) {
+			if (word.length() > 1) {
+				unique.add(word);
+			}
+		}
+		String[] sorted = unique.toArray(new String[unique.size()]);
+		return new Builder(sorted).build();
+	}
+
+	/**
+	 * @return a TrieNode view of the root, usable with any Heuristic
+	 */
+	public TrieNode getRootNode() {
+		return new DoubleArrayTrieNode(this, ROOT, 0);
+	}
+
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	// Returns the child of node on c, or NONE.
+	public int getChild(int node, char c) {
+		int code = c < this.codes.length ? this.codes[c] : 0;
+		if (code == 0) {
+			return NONE;
+		}
+		int next = this.base[node] + code;
+		if (next < this.check.length && this.check[next] == node) {
+			return next;
+		}
+		return NONE;
+	}
+
+	// Follows prefix from node, returning NONE if it falls off the trie.
+	public int walk(int node, CharSequence prefix) {
+		for (int i = 0; i < prefix.length() && node != NONE; i++) {
+			node = getChild(node, prefix.charAt(i));
+		}
+		return node;
+	}
+
+	public int getChildCount(int node) {
+		return this.childCount[node];
+	}
+
+	// Children are ordered by character code.
+	public int getChildAt(int node, int i) {
+		return this.childList[this.childStart[node] + i];
+	}
+
+	public char getLabel(int node) {
+		return this.labels[node];
+	}
+
+	public int getParent(int node) {
+		return node == ROOT ? NONE : this.check[node];
+	}
+
+	public int getDepth(int node) {
+		int depth = 0;
+		for (; node != ROOT; node = this.check[node]) {
+			depth++;
+		}
+		return depth;
+	}
+
+	public boolean isLeaf(int node) {
+		return this.childCount[node] == 0;
+	}
+
+	public boolean isWord(int node) {
+		return this.words.get(node);
+	}
+
+	public int getHeuristic(int node) {
+		return this.heuristics[node];
+	}
+
+	public void setHeuristic(int node, int heuristic) {
+		this.heuristics[node] = heuristic;
+	}
+
+	// Returns the characters on the path from the root to node.
+	public String getPrefix(int node) {
+		char[] buf = new char[getDepth(node)];
+		for (int i = buf.length - 1; i >= 0; i--) {
+			buf[i] = this.labels[node];
+			node = this.check[node];
+		}
+		return new String(buf);
+	}
+
+	/**
+	 * @return number of nodes, including the root
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return length of the base and check arrays
+	 */
+	public int getCapacity() {
+		return this.base.length;
+	}
+
+	public long getMemoryUsage() {
+		long bytes = 4L * (this.base.length + this.check.length + this.heuristics.length
+				+ this.childStart.length + this.childCount.length + this.childList.length + this.codes.length);
+		bytes += 2L * this.labels.length;
+		bytes += this.words.size() / 8;
+		return bytes;
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Completions of word in order of decreasing heuristic, as MTrieNode.findByHeuristic returns
+	// them. Leaves with no positive heuristic are never reported.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		if (word.length() == 0) {
+			return results;
+		}
+		int node = walk(ROOT, word.toLowerCase());
+		if (node == NONE || isLeaf(node)) {
+			return results;
+		}
+
+		return new Completions().complete(node, word.toLowerCase(), maxResults);
+	}
+
+	// Completions below a node, through its children with a positive heuristic.
+	private final class Completions extends CompletionSearch {
+		protected boolean isLeaf(int node) {
+			return DoubleArrayTrie.this.isLeaf(node);
+		}
+
+		protected void expand(int node) {
+			int start = DoubleArrayTrie.this.childStart[node];
+			for (int i = 0; i < DoubleArrayTrie.this.childCount[node]; i++) {
+				int child = DoubleArrayTrie.this.childList[start + i];
+				if (DoubleArrayTrie.this.heuristics[child] > 0) {
+					add(child, DoubleArrayTrie.this.heuristics[child]);
+				}
+			}
+		}
+
+		protected void spell(int node, char[] buf, int end) {
+			buf[end - 1] = getLabel(node);
+		}
+	}
+
+	public String toString() {
+		return "DoubleArrayTrie[nodes=" + this.size + ", capacity=" + getCapacity()
+				+ ", bytes=" + getMemoryUsage() + "]";
+	}
+
+	/**
+	 * Walks the trie one character at a time without allocating.
+	 */
+	public final class Cursor {
+		private int node = ROOT;
+		private int depth = 0;
+
+		private Cursor() {
+		}
+
+		public void reset() {
+			this.node = ROOT;
+			this.depth = 0;
+		}
+
+		// Moves to the child on c, leaving the cursor where it was if there is none.
+		public boolean next(char c) {
+			int child = getChild(this.node, c);
+			if (child == NONE) {
+				return false;
+			}
+			this.node = child;
+			this.depth++;
+			return true;
+		}
+
+		public boolean back() {
+			if (this.node == ROOT) {
+				return false;
+			}
+			this.node = check[this.node];
+			this.depth--;
+			return true;
+		}
+
+		public int getNode() {
+			return this.node;
+		}
+
+		public int getDepth() {
+			return this.depth;
+		}
+
+		public boolean isLeaf() {
+			return DoubleArrayTrie.this.isLeaf(this.node);
+		}
+
+		public boolean isWord() {
+			return DoubleArrayTrie.this.isWord(this.node);
+		}
+
+		public int getHeuristic() {
+			return heuristics[this.node];
+		}
+	}
+
+	// Places sorted words breadth first, giving each node the lowest base that fits its children.
+	private static final class Builder {
+		private final String[] sorted;
+		private final int[] codes;
+
+		private int[] base = new int[1024];
+		private int[] check = new int[1024];
+		private char[] labels = new char[1024];
+		private int[] depths = new int[1024];
+		private int[] childStart = new int[1024];
+		private int[] childCount = new int[1024];
+		private int[] childList = new int[1024];
+		private int childListSize = 0;
+		private final BitSet words = new BitSet();
+		private int[] nextFree = new int[1024]; // free slots, linked through the never-free root slot
+		private int[] prevFree = new int[1024];
+		private int capacity = 1;
+
+		Builder(String[] sorted) {
+			this.sorted = sorted;
+			char max = 0;
+			boolean[] seen = new boolean[Character.MAX_VALUE + 1];
+			for (String word : sorted) {
+				for (int i = 0; i < word.length(); i++) {
+					char c = word.charAt(i);
+					seen[c] = true;
+					if (c > max) {
+						max = c;
+					}
+				}
+			}
+			this.codes = new int[max + 1];
+			int code = 0;
+			for (int c = 0; c <= max; c++) {
+				if (seen[c]) {
+					this.codes[c] = ++code;
+				}
+			}
+			Arrays.fill(this.check, FREE);
+			this.check[ROOT] = NONE;
+			linkFree(1, this.check.length);
+		}
+
+		DoubleArrayTrie build() {
+			// queue of node, first word, last word (exclusive) sharing the node's prefix
+			int[] queue = new int[3 * 1024];
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = ROOT;
+			queue[tail++] = 0;
+			queue[tail++] = this.sorted.length;
+			int[] order = new int[1024];
+			int size = 0;
+
+			int[] childCodes = new int[this.codes.length + 1];
+			int[] childFrom = new int[this.codes.length + 1];
+			while (head < tail) {
+				int node = queue[head++];
+				int from = queue[head++];
+				int to = queue[head++];
+				if (size == order.length) {
+					order = Arrays.copyOf(order, size * 2);
+				}
+				order[size++] = node;
+
+				int depth = this.depths[node];
+				int count = 0;
+				for (int i = from; i < to; i++) {
+					String word = this.sorted[i];
+					if (word.length() == depth) {
+						this.words.set(node);
+						continue;
+					}
+					int code = this.codes[word.charAt(depth)];
+					if (count == 0 || childCodes[count - 1] != code) {
+						childCodes[count] = code;
+						childFrom[count] = i;
+						count++;
+					}
+				}
+				childFrom[count] = to;
+
+				this.childStart[node] = this.childListSize;
+				this.childCount[node] = count;
+				if (count == 0) {
+					continue;
+				}
+				int b = findBase(childCodes, count);
+				this.base[node] = b;
+				for (int k = 0; k < count; k++) {
+					int child = b + childCodes[k];
+					this.check[child] = node;
+					this.labels[child] = this.sorted[childFrom[k]].charAt(depth);
+					this.depths[child] = depth + 1;
+					addChild(child);
+					if (tail + 3 > queue.length) {
+						// reclaim the consumed front of the queue before growing it
+						System.arraycopy(queue, head, queue, 0, tail - head);
+						tail -= head;
+						head = 0;
+						if (tail + 3 > queue.length) {
+							queue = Arrays.copyOf(queue, queue.length * 2);
+						}
+					}
+					queue[tail++] = child;
+					queue[tail++] = childFrom[k];
+					queue[tail++] = childFrom[k + 1];
+				}
+			}
+
+			// FindByLongest heuristics, children before parents
+			int[] heuristics = new int[this.capacity];
+			for (int i = size - 1; i > 0; i--) {
+				int node = order[i];
+				if (this.childCount[node] == 0) {
+					heuristics[node] = this.depths[node];
+				}
+				int parent = this.check[node];
+				if (parent != ROOT && heuristics[node] > heuristics[parent]) {
+					heuristics[parent] = heuristics[node];
+				}
+			}
+
+			return new DoubleArrayTrie(Arrays.copyOf(this.base, this.capacity), Arrays.copyOf(this.check, this.capacity),
+					Arrays.copyOf(this.labels, this.capacity), heuristics, Arrays.copyOf(this.childStart, this.capacity),
+					Arrays.copyOf(this.childCount, this.capacity), Arrays.copyOf(this.childList, this.childListSize),
+					this.words, this.codes, size);
+		}
+
+		// Lowest base whose child slots are all free, scanning the free list from its head.
+		private int findBase(int[] childCodes, int count) {
+			int last = childCodes[count - 1];
+			if (this.nextFree[0] == 0) {
+				ensureCapacity(this.check.length + 1);
+			}
+			for (int pos = this.nextFree[0]; ; pos = this.nextFree[pos]) {
+				if (this.nextFree[pos] == 0) {
+					// never run off the end of the list
+					ensureCapacity(this.check.length + 1);
+				}
+				int b = pos - childCodes[0];
+				if (b < 1) {
+					continue;
+				}
+				ensureCapacity(b + last + 1);
+				boolean fits = true;
+				for (int k = 1; k < count && fits; k++) {
+					fits = this.check[b + childCodes[k]] == FREE;
+				}
+				if (fits) {
+					for (int k = 0; k < count; k++) {
+						occupy(b + childCodes[k]);
+					}
+					this.capacity = Math.max(this.capacity, b + last + 1);
+					return b;
+				}
+			}
+		}
+
+		// Unlinks slot from the free list; check[] is set by the caller.
+		private void occupy(int slot) {
+			this.nextFree[this.prevFree[slot]] = this.nextFree[slot];
+			this.prevFree[this.nextFree[slot]] = this.prevFree[slot];
+			this.check[slot] = NONE;
+		}
+
+		private void addChild(int child) {
+			if (this.childListSize == this.childList.length) {
+				this.childList = Arrays.copyOf(this.childList, this.childListSize * 2);
+			}
+			this.childList[this.childListSize++] = child;
+		}
+
+		// Appends slots [from, to) to the end of the free list, which is circular through slot 0.
+		private void linkFree(int from, int to) {
+			int tail = this.prevFree[0];
+			for (int slot = from; slot < to; slot++) {
+				this.nextFree[tail] = slot;
+				this.prevFree[slot] = tail;
+				tail = slot;
+			}
+			this.nextFree[tail] = 0;
+			this.prevFree[0] = tail;
+		}
+
+		private void ensureCapacity(int length) {
+			if (length <= this.check.length) {
+				return;
+			}
+			int grown = Math.max(length, this.check.length * 2);
+			int old = this.check.length;
+			this.base = Arrays.copyOf(this.base, grown);
+			this.check = Arrays.copyOf(this.check, grown);
+			Arrays.fill(this.check, old, grown, FREE);
+			this.nextFree = Arrays.copyOf(this.nextFree, grown);
+			this.prevFree = Arrays.copyOf(this.prevFree, grown);
+			linkFree(old, grown);
+			this.labels = Arrays.copyOf(this.labels, grown);
+			this.depths = Arrays.copyOf(this.depths, grown);
+			this.childStart = Arrays.copyOf(this.childStart, grown);
+			this.childCount = Arrays.copyOf(this.childCount, grown);
+		}
+	}
+}
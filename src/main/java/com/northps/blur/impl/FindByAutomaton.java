@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package com.northps.blur.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.northps.blur.LevenshteinAutomaton;
+import com.northps.blur.TrieNode;
+import com.northps.blur.Word;
+
+/**
+ * Same ranking as {@link FindByLongest}, but candidates are found by walking the trie once with
+ * a Levenshtein automaton for the query instead of probing the trie with every blurred variant.
+ * Only branches that keep the automaton alive are followed. Below a prefix the automaton
+ * accepts, the same walk goes on collecting every completion no longer than the results may be,
+ * at the smallest distance of an accepted prefix above it, so no completion is looked up from the
+ * root again and the stored heuristics are not used.
+ */
+public class FindByAutomaton extends FindByLongest {
+	private static final int NOT_ACCEPTED = Integer.MAX_VALUE;
+
+	public FindByAutomaton() {
+		super();
+	}
+
+	public FindByAutomaton(int maxDistance, boolean transpositions) {
+		super(maxDistance, transpositions);
+	}
+
+	// The walk does not rank by heuristic, so the trie is left as it is.
+	@Override
+	protected void prepareHeuristics(TrieNode node) {
+	}
+
+	@Override
+	protected List <Word> gatherCandidates(TrieNode node, String query, int count) throws Exception {
+		LevenshteinAutomaton automaton = new LevenshteinAutomaton(query, this.maxDistance, this.transpositions);
+        List <Word> wordRes = new ArrayList <Word> ();
+        StringBuilder prefix = new StringBuilder();
+        long start = automaton.getInitialState();
+        int maxLength = getMaxResultLength(query);
+		for (TrieNode child : node.getChildren().values()) {
+			walk(child, automaton, start, NOT_ACCEPTED, prefix, maxLength, wordRes);
+		}
+		return wordRes;
+	}
+
+	// accepted is the smallest distance of an accepted prefix above node, a leaf below one is a
+	// completion of it just as findByHeuristic would return it.
+	private void walk(TrieNode node, LevenshteinAutomaton automaton, long state, int accepted, StringBuilder prefix,
+			int maxLength, List <Word> wordRes) {
+		long next = automaton.isDead(state) ? state : automaton.step(state, node.getValue().charValue());
+		if (automaton.isDead(next) && accepted == NOT_ACCEPTED) {
+			return;
+		}
+		prefix.append(node.getValue().charValue());
+		if (node.isLeaf()) {
+			if (accepted != NOT_ACCEPTED) {
+				wordRes.add(new Word(prefix.toString(), accepted));
+			}
+		} else if (prefix.length() < maxLength) {
+			int below = accepted;
+			if (automaton.isAccepting(next)) {
+				below = Math.min(below, automaton.getDistance(next));
+			}
+			for (TrieNode child : node.getChildren().values()) {
+				walk(child, automaton, next, below, prefix, maxLength, wordRes);
+			}
+		}
+		prefix.setLength(prefix.length() - 1);
+	}
+}
@@ -29,8 +29,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.northps.blur.Alphabet;
 import com.northps.blur.Fuzzy;
-import com.northps.blur.Heuristic;
+import com.northps.blur.IncrementalHeuristic;
+import com.northps.blur.MaintainedHeuristics;
 import com.northps.blur.TrieNode;
 import com.northps.blur.Word;
 import com.northps.blur.util.QuickSort;
@@ -39,27 +41,64 @@ import com.northps.blur.util.QuickSort;
  * @author mikepatterson
  *
  */
-public class FindByLongest implements Heuristic {
+public class FindByLongest implements IncrementalHeuristic {
 	
-	private static final int INDEL_DISTANCE = 2; // Maximum allowable distance of considered words (number of misses).
-    private static final int MAX_LENGTH_MULTIPLIER = 2; // Determines the maximum characters the returned results will have based on this multiplier multiplied by the search query length.
-    private static final int ADJUSTED_DISTANCE_MULTIPLIER = 4; // Penalty given to word length.
-    private static final int CRITICAL_FUZZY_LENGTH = 3; // Word must be longer than this for fuzzy search to be enabled.
+	protected static final int INDEL_DISTANCE = 2; // Maximum allowable distance of considered words (number of misses).
+    protected static final int MAX_LENGTH_MULTIPLIER = 2; // Determines the maximum characters the returned results will have based on this multiplier multiplied by the search query length.
+    protected static final int ADJUSTED_DISTANCE_MULTIPLIER = 4; // Penalty given to word length.
+    protected static final int CRITICAL_FUZZY_LENGTH = 3; // Word must be longer than this for fuzzy search to be enabled.
+
+	protected final int maxDistance; // Maximum distance of considered words, INDEL_DISTANCE by default.
+	protected final boolean transpositions; // Whether swapping two adjacent characters counts as a single miss.
+	protected final Alphabet alphabet; // Characters inserted or substituted when blurring the query.
+
+	public FindByLongest() {
+		this(INDEL_DISTANCE, false);
+	}
+
+	public FindByLongest(int maxDistance, boolean transpositions) {
+		this(maxDistance, transpositions, Alphabet.DEFAULT);
+	}
+
+	// Pass Alphabet.fromTrie(root) to blur with the characters of the loaded dictionary.
+	public FindByLongest(int maxDistance, boolean transpositions, Alphabet alphabet) {
+		this.maxDistance = maxDistance;
+		this.transpositions = transpositions;
+		this.alphabet = alphabet;
+	}
 	
+	// Sets this default heuristic on a root whose heuristics were never set, as the tries do
+	// before their first findByHeuristic.
+	public static void setDefaultHeuristics(TrieNode root) {
+		try {
+			new FindByLongest().setTreeHeuristics(root);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
 	@Override
 	public void setTreeHeuristics (TrieNode node) throws Exception {
 		if (!node.isRoot()){
 			throw new Exception("calcHeuristic must be run on root node");
 		}
+		if (node instanceof MaintainedHeuristics) {
+			((MaintainedHeuristics) node).setMaintainedHeuristic(this);
+		}
 		node.setHeuristic(0);
 		for (TrieNode child : node.getChildren().values()) {
 			calcHeuristic(child);
 		}
 	}
+
+	@Override
+	public int getLeafHeuristic(int depth) {
+		return depth;
+	}
 	
 	private void calcHeuristic(TrieNode node) {
 		if (node.isLeaf()) {
-			node.setHeuristic(node.getDepth());
+			node.setHeuristic(getLeafHeuristic(node.getDepth()));
 		} else {
 			for (TrieNode child : node.getChildren().values()) {
 				calcHeuristic(child);
@@ -84,44 +123,61 @@ public class FindByLongest implements Heuristic {
         	// TODO: Maybe we do regular search here....
         	return new ArrayList <String> ();
         }
-		
-		List <String> results = null;
 
+        prepareHeuristics(node);
+		List <Word> wordRes = gatherCandidates(node, query, count);
+		return rankCandidates(wordRes, count);
+	}
+
+	// Set up heuristics for this trie, unless it keeps these ones up to date already. A trie that
+	// maintains another heuristic is set again, or throws if it cannot be, as a frozen one does.
+	protected void prepareHeuristics(TrieNode node) throws Exception {
+        if (node instanceof MaintainedHeuristics
+        		&& ((MaintainedHeuristics) node).getMaintainedHeuristic() instanceof FindByLongest) {
+        	((MaintainedHeuristics) node).refreshHeuristics();
+        } else {
+        	setTreeHeuristics(node);
+        }
+	}
+
+	// Collects every completion of every fuzzy variant of query, keeping the smallest distance seen for each result.
+	protected List <Word> gatherCandidates(TrieNode node, String query, int count) throws Exception {
 		// get all fuzzy word combinations
-		List <Word> words = Fuzzy.blur(INDEL_DISTANCE, query);
+		List <Word> words = Fuzzy.blur(this.maxDistance, query, this.alphabet, this.transpositions);
 		
         List <Word> wordRes = new ArrayList <Word> (); // This is our list of results
         Map <String, Integer> noDups = new HashMap <String, Integer> (); // Temp map to assure no duplicate strings.
                 
-        long start = System.currentTimeMillis();
-
-        // Set up heuristics for this trie
-		setTreeHeuristics(node);
-		
 		// Loop through fuzzy words, getting possible results for each one.
         for (Word word : words) {
-        	results = node.findByHeuristic(word.getValue(), count);
-        	
-        	// Add results for single word to over all list of results
-        	for (String result : results) {
-        		if (result.length() <= ((query.length() * MAX_LENGTH_MULTIPLIER) + 3)) {
-        			Integer i = noDups.get(result);
-        			if (i == null) {
-        				wordRes.add(new Word(result, word.getDistance()));
-        				noDups.put(result, wordRes.size() - 1);
-        			} else {
-        				if (wordRes.get(i.intValue()).getDistance() > word.getDistance()) {
-        					wordRes.set(i.intValue(), new Word(result, word.getDistance()));
-        				}
-        			}
-        		}
-        	}
-        	results.clear();
+        	addCandidates(wordRes, noDups, node.findByHeuristic(word.getValue(), count), query, word.getDistance());
         }
-        
-        long end = System.currentTimeMillis();
-//        System.out.println("Gathering results time: " + (end - start));
-        
+        return wordRes;
+	}
+
+	// Add results for single word to over all list of results
+	protected void addCandidates(List <Word> wordRes, Map <String, Integer> noDups, List <String> results, String query, int distance) {
+    	for (String result : results) {
+    		if (result.length() <= getMaxResultLength(query)) {
+    			Integer i = noDups.get(result);
+    			if (i == null) {
+    				wordRes.add(new Word(result, distance));
+    				noDups.put(result, wordRes.size() - 1);
+    			} else {
+    				if (wordRes.get(i.intValue()).getDistance() > distance) {
+    					wordRes.set(i.intValue(), new Word(result, distance));
+    				}
+    			}
+    		}
+    	}
+	}
+
+	// Longer results are never returned for query.
+	protected int getMaxResultLength(String query) {
+		return (query.length() * MAX_LENGTH_MULTIPLIER) + 3;
+	}
+
+	protected List <String> rankCandidates(List <Word> wordRes, int count) {
         // Adjust distance based on word length and multiplier
         for (int i = 0; i < wordRes.size(); i++) {
         	Word next = wordRes.get(i);
@@ -129,20 +185,12 @@ public class FindByLongest implements Heuristic {
         	wordRes.set(i, next);
         }
         
-//        System.out.println("size: " + wordRes.size());
-//        System.out.println("size without dups: " + noDups.size());
-                
         // sort by adjusted distance, largest distance to smallest distance
-        start = System.currentTimeMillis();
         QuickSort <Word> sort = new QuickSort <Word> ();
         sort.sort(wordRes);
-        
-        end = System.currentTimeMillis();
-//        System.out.println("Sorting time: " + (end - start));
 
-//        System.out.println(">>> results:");
+        List <String> results = new ArrayList <String> ();
         for (Word next : wordRes) {
-//        	System.out.println("val: " + next.getValue() + ", dist: " + next.getDistance());
         	results.add(next.getValue());
         	if (results.size() >= count) {
         		break;
@@ -151,6 +199,4 @@ public class FindByLongest implements Heuristic {
 		return results;
 	}
 	
-	
-	
 }
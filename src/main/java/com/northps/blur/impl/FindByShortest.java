@@ -26,14 +26,15 @@ package com.northps.blur.impl;
 
 import java.util.List;
 
-import com.northps.blur.Heuristic;
+import com.northps.blur.IncrementalHeuristic;
+import com.northps.blur.MaintainedHeuristics;
 import com.northps.blur.TrieNode;
 
 /**
  * @author mikepatterson
  *
  */
-public class FindByShortest implements Heuristic {
+public class FindByShortest implements IncrementalHeuristic {
 
 	private static final int PRECISION_MULTIPLIER = Integer.MAX_VALUE; // maximum depth = square root of Integer.MAX_VALUE (46340).
 
@@ -42,15 +43,23 @@ public class FindByShortest implements Heuristic {
 		if (!node.isRoot()){
 			throw new Exception("calcHeuristic must be run on root node");
 		}
+		if (node instanceof MaintainedHeuristics) {
+			((MaintainedHeuristics) node).setMaintainedHeuristic(this);
+		}
 		
 		for (TrieNode child : node.getChildren().values()) {
 			calcHeuristic(child);
 		}
 	}
+
+	@Override
+	public int getLeafHeuristic(int depth) {
+		return PRECISION_MULTIPLIER / depth;
+	}
 	
 	private void calcHeuristic(TrieNode node) {
 		if (node.isLeaf()) {
-			node.setHeuristic(PRECISION_MULTIPLIER / node.getDepth());
+			node.setHeuristic(getLeafHeuristic(node.getDepth()));
 		} else { 
 			for (TrieNode child : node.getChildren().values()) {
 				calcHeuristic(child);
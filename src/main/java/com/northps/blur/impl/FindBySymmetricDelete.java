@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package com.northps.blur.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.northps.blur.SymmetricDeleteIndex;
+import com.northps.blur.TrieNode;
+import com.northps.blur.Word;
+
+/**
+ * Spelling correction against a {@link SymmetricDeleteIndex}. Results are whole dictionary
+ * words within the index's distance of the query rather than completions, ranked the same way
+ * as {@link FindByLongest}.
+ *
+ * The index is filled by {@link MTrieNode#loadDictionary} once set with
+ * {@link MTrieNode#setDeleteIndex}.
+ */
+public class FindBySymmetricDelete extends FindByLongest {
+	private final SymmetricDeleteIndex index;
+
+	public FindBySymmetricDelete(SymmetricDeleteIndex index) {
+		this.index = index;
+	}
+
+	public FindBySymmetricDelete(SymmetricDeleteIndex index, int maxDistance, boolean transpositions) {
+		super(maxDistance, transpositions);
+		this.index = index;
+	}
+
+	// The index lookup does not rank by heuristic, so the trie is left as it is.
+	@Override
+	protected void prepareHeuristics(TrieNode node) {
+	}
+
+	@Override
+	protected List <Word> gatherCandidates(TrieNode node, String query, int count) throws Exception {
+		List <Word> wordRes = new ArrayList <Word> ();
+		for (Word word : this.index.lookup(query, Math.min(this.maxDistance, this.index.getMaxDistance()), this.transpositions)) {
+			if (word.getValue().length() <= getMaxResultLength(query)) {
+				wordRes.add(word);
+			}
+		}
+		return wordRes;
+	}
+}
@@ -0,0 +1,320 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import com.northps.blur.TrieNode;
+import com.northps.blur.util.CompletionSearch;
+import com.northps.blur.util.DictionaryReader;
+import com.northps.blur.util.PackedIntArray;
+import com.northps.blur.util.RankSelectBitVector;
+
+/**
+ * Succinct read only trie in LOUDS (level order unary degree sequence) form. Nodes are
+ * numbered breadth first from the root at 0. The shape is one bit vector holding "10" for a
+ * super root and then, for every node in order, a one per child followed by a zero: about two
+ * bits per node. Children of a node are consecutive numbers, found with select on that vector.
+ *
+ * Labels are a byte per node when every character is Latin-1, a char otherwise, and heuristics
+ * are bit packed to the width of the largest one. Words and results are as for MTrieNode, and
+ * heuristics start out as FindByLongest sets them. Navigation costs a select per step, so this
+ * trades lookup speed for memory against DoubleArrayTrie.
+ */
+public class LoudsTrie {
+	public static final int ROOT = 0;
+	public static final int NONE = -1;
+
+	private final RankSelectBitVector louds;
+	private final byte[] narrowLabels; // when every label is Latin-1
+	private final char[] wideLabels;
+	private final PackedIntArray heuristics;
+	private final int size;
+
+	private LoudsTrie(RankSelectBitVector louds, byte[] narrowLabels, char[] wideLabels, PackedIntArray heuristics, int size) {
+		this.louds = louds;
+		this.narrowLabels = narrowLabels;
+		this.wideLabels = wideLabels;
+		this.heuristics = heuristics;
+		this.size = size;
+	}
+
+	public static LoudsTrie load(File dictionary) throws Exception {
+		return build(DictionaryReader.readWords(dictionary));
+	}
+
+	// Words shorter than two characters are skipped, as MTrieNode.attach does.
+	public static LoudsTrie build(Collection<String> input) {
+		TreeSet<String> unique = new TreeSet<String>();
+		for (String word : input) {
+			if (word.length() > 1) {
+				unique.add(word);
+			}
+		}
+		String[] sorted = unique.toArray(new String[unique.size()]);
+
+		// breadth first over ranges of sorted words sharing a prefix
+		IntList ranges = new IntList(); // first word, last word (exclusive), depth per node
+		StringBuilder labels = new StringBuilder();
+		IntList bits = new IntList(); // degree per node
+		ranges.add(0);
+		ranges.add(sorted.length);
+		ranges.add(0);
+		labels.append('\0');
+		char maxLabel = 0;
+		for (int node = 0; node * 3 < ranges.size(); node++) {
+			int from = ranges.get(node * 3);
+			int to = ranges.get(node * 3 + 1);
+			int depth = ranges.get(node * 3 + 2);
+			int degree = 0;
+			int i = from;
+			while (i < to && sorted[i].length() == depth) {
+				i++;
+			}
+			while (i < to) {
+				char c = sorted[i].charAt(depth);
+				int first = i;
+				while (i < to && sorted[i].charAt(depth) == c) {
+					i++;
+				}
+				ranges.add(first);
+				ranges.add(i);
+				ranges.add(depth + 1);
+				labels.append(c);
+				maxLabel = (char) Math.max(maxLabel, c);
+				degree++;
+			}
+			bits.add(degree);
+		}
+
+		int size = bits.size();
+		int length = 2 * size + 1;
+		long[] words = new long[(length + 63) / 64 + 1];
+		int pos = 0;
+		words[0] = 1L; // super root "10"
+		pos = 2;
+		for (int node = 0; node < size; node++) {
+			for (int d = 0; d < bits.get(node); d++, pos++) {
+				words[pos >>> 6] |= 1L << pos;
+			}
+			pos++;
+		}
+
+		// FindByLongest heuristics; children always follow their parent
+		int[] heuristics = new int[size];
+		int max = 0;
+		int child = size - 1;
+		for (int node = size - 1; node >= 0; node--) {
+			int degree = bits.get(node);
+			if (degree == 0) {
+				heuristics[node] = ranges.get(node * 3 + 2);
+			}
+			// children of the nodes after this one were numbered last, so count back from the end
+			for (int d = 0; d < degree; d++, child--) {
+				heuristics[node] = Math.max(heuristics[node], heuristics[child]);
+			}
+			max = Math.max(max, heuristics[node]);
+		}
+		heuristics[ROOT] = 0;
+		PackedIntArray packed = new PackedIntArray(size, max);
+		for (int node = 0; node < size; node++) {
+			packed.set(node, heuristics[node]);
+		}
+
+		byte[] narrow = null;
+		char[] wide = null;
+		if (maxLabel < 256) {
+			narrow = new byte[size];
+			for (int node = 0; node < size; node++) {
+				narrow[node] = (byte) labels.charAt(node);
+			}
+		} else {
+			wide = labels.toString().toCharArray();
+		}
+		return new LoudsTrie(new RankSelectBitVector(words, length), narrow, wide, packed, size);
+	}
+
+	/**
+	 * @return a TrieNode view of the root, usable with any Heuristic
+	 */
+	public TrieNode getRootNode() {
+		return new LoudsTrieNode(this, ROOT, 0);
+	}
+
+	// Number of the first child of node, if it has any.
+	public int getFirstChild(int node) {
+		return this.louds.select0(node + 1) - node;
+	}
+
+	public int getChildCount(int node) {
+		int start = this.louds.select0(node + 1) + 1;
+		return this.louds.nextZero(start) - start;
+	}
+
+	// Children are ordered by label.
+	public int getChildAt(int node, int i) {
+		return getFirstChild(node) + i;
+	}
+
+	public int getParent(int node) {
+		return node == ROOT ? NONE : this.louds.rank0(this.louds.select1(node + 1)) - 1;
+	}
+
+	// Returns the child of node on c, or NONE.
+	public int getChild(int node, char c) {
+		int start = this.louds.select0(node + 1) + 1;
+		int low = start - node - 1;
+		int high = low + this.louds.nextZero(start) - start - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char label = getLabel(mid);
+			if (label < c) {
+				low = mid + 1;
+			} else if (label > c) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return NONE;
+	}
+
+	public int walk(int node, CharSequence prefix) {
+		for (int i = 0; i < prefix.length() && node != NONE; i++) {
+			node = getChild(node, prefix.charAt(i));
+		}
+		return node;
+	}
+
+	public char getLabel(int node) {
+		return this.narrowLabels != null ? (char) (this.narrowLabels[node] & 0xff) : this.wideLabels[node];
+	}
+
+	public boolean isLeaf(int node) {
+		int start = this.louds.select0(node + 1) + 1;
+		return !this.louds.get(start);
+	}
+
+	public int getHeuristic(int node) {
+		return this.heuristics.get(node);
+	}
+
+	public void setHeuristic(int node, int heuristic) {
+		this.heuristics.set(node, heuristic);
+	}
+
+	public String getPrefix(int node) {
+		StringBuilder buf = new StringBuilder();
+		for (; node != ROOT; node = getParent(node)) {
+			buf.append(getLabel(node));
+		}
+		return buf.reverse().toString();
+	}
+
+	/**
+	 * @return number of nodes, including the root
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	public long getMemoryUsage() {
+		long labels = this.narrowLabels != null ? this.narrowLabels.length : 2L * this.wideLabels.length;
+		return this.louds.getMemoryUsage() + labels + this.heuristics.getMemoryUsage();
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Completions of word in order of decreasing heuristic, as MTrieNode.findByHeuristic returns
+	// them. Leaves with no positive heuristic are never reported.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		if (word.length() == 0) {
+			return results;
+		}
+		int node = walk(ROOT, word.toLowerCase());
+		if (node == NONE || isLeaf(node)) {
+			return results;
+		}
+
+		return new Completions().complete(node, word.toLowerCase(), maxResults);
+	}
+
+	// Completions below a node, through its children with a positive heuristic.
+	private final class Completions extends CompletionSearch {
+		protected boolean isLeaf(int node) {
+			return LoudsTrie.this.isLeaf(node);
+		}
+
+		protected void expand(int node) {
+			int start = LoudsTrie.this.louds.select0(node + 1) + 1;
+			int first = start - node - 1;
+			int count = LoudsTrie.this.louds.nextZero(start) - start;
+			for (int child = first; child < first + count; child++) {
+				int heuristic = getHeuristic(child);
+				if (heuristic > 0) {
+					add(child, heuristic);
+				}
+			}
+		}
+
+		protected void spell(int node, char[] buf, int end) {
+			buf[end - 1] = getLabel(node);
+		}
+	}
+
+	public String toString() {
+		return "LoudsTrie[nodes=" + this.size + ", bytes=" + getMemoryUsage()
+				+ ", heuristic bits=" + this.heuristics.getBitsPerValue() + "]";
+	}
+
+	// Growable int array for the builder.
+	private static final class IntList {
+		private int[] values = new int[1024];
+		private int size = 0;
+
+		void add(int value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size * 2);
+			}
+			this.values[this.size++] = value;
+		}
+
+		int get(int i) {
+			return this.values[i];
+		}
+
+		int size() {
+			return this.size;
+		}
+	}
+}
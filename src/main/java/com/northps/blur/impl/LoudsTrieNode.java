@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.northps.blur.TrieNode;
+
+/**
+ * TrieNode view of one node of a LoudsTrie. Views are created on demand and hold nothing
+ * but the node index, so heuristics set through them land in the trie's heuristic array.
+ */
+public class LoudsTrieNode implements TrieNode {
+	private final LoudsTrie trie;
+	private final int node;
+	private final int depth;
+
+	LoudsTrieNode(LoudsTrie trie, int node, int depth) {
+		this.trie = trie;
+		this.node = node;
+		this.depth = depth;
+	}
+
+	public LoudsTrie getTrie() {
+		return this.trie;
+	}
+
+	public boolean isLeaf() {
+		return this.trie.isLeaf(this.node);
+	}
+
+	public boolean isRoot() {
+		return this.node == LoudsTrie.ROOT;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	public Map<Character, TrieNode> getChildren() {
+		int count = this.trie.getChildCount(this.node);
+		Map<Character, TrieNode> children = new LinkedHashMap<Character, TrieNode>(count * 2);
+		for (int i = 0; i < count; i++) {
+			int child = this.trie.getChildAt(this.node, i);
+			children.put(Character.valueOf(this.trie.getLabel(child)),
+					new LoudsTrieNode(this.trie, child, this.depth + 1));
+		}
+		return children;
+	}
+
+	// Node indexes are unique within one trie.
+	public int getId() {
+		return this.node;
+	}
+
+	public Character getValue() {
+		return isRoot() ? null : Character.valueOf(this.trie.getLabel(this.node));
+	}
+
+	public int getHeuristic() {
+		return this.trie.getHeuristic(this.node);
+	}
+
+	public void setHeuristic(int heuristic) {
+		this.trie.setHeuristic(this.node, heuristic);
+	}
+
+	public void attach(String word) {
+		throw new UnsupportedOperationException("LOUDS tries are built once, see LoudsTrie.build");
+	}
+
+	public void loadDictionary(File dictionary) throws Exception {
+		throw new UnsupportedOperationException("LOUDS tries are built once, see LoudsTrie.load");
+	}
+
+	// Searches the whole trie, like MTrieNode, whichever node this is.
+	public List<String> findByHeuristic(String word) {
+		return this.trie.findByHeuristic(word);
+	}
+
+	public List<String> findByHeuristic(String word, int maxResults) {
+		return this.trie.findByHeuristic(word, maxResults);
+	}
+
+	public boolean equals(Object o) {
+		if (!(o instanceof LoudsTrieNode)) {
+			return false;
+		}
+		LoudsTrieNode other = (LoudsTrieNode) o;
+		return other.trie == this.trie && other.node == this.node;
+	}
+
+	public int hashCode() {
+		return this.node;
+	}
+
+	public String toString() {
+		return isRoot() ? "" : String.valueOf(this.trie.getLabel(this.node));
+	}
+}
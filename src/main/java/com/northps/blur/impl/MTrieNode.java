@@ -32,9 +32,17 @@ import java.io.IOException;
 import java.util.*;
 
 import com.northps.blur.Heuristic;
+import com.northps.blur.IncrementalHeuristic;
+import com.northps.blur.MaintainedHeuristics;
+import com.northps.blur.SymmetricDeleteIndex;
 import com.northps.blur.TrieNode;
 
-public class MTrieNode implements TrieNode {
+public class MTrieNode implements TrieNode, MaintainedHeuristics {
+   // States of a node's heuristic for refreshHeuristics.
+   private static final byte CLEAN = 0;
+   private static final byte DIRTY_BELOW = 1; // some descendant is dirty
+   private static final byte DIRTY = 2; // the node and its whole subtree need recomputing
+
    private final Character value;
    private final Map<Character, TrieNode> children;
    private static int guid = 0;
@@ -42,6 +50,10 @@ public class MTrieNode implements TrieNode {
    private int heuristic = 0;
    private int depth = 0;
    private boolean isHeuristicSet = false;
+   private boolean frozen = false;
+   private byte dirty = CLEAN;
+   private IncrementalHeuristic maintained = null; // of a root, kept up to date by attach
+   private SymmetricDeleteIndex deleteIndex = null;
 
    private static synchronized int getGuid() {
        guid++;
@@ -72,6 +84,9 @@ public class MTrieNode implements TrieNode {
    }
 
    public void attach(String word) {
+       if (this.frozen) {
+           throw new IllegalStateException("Cannot attach to a frozen trie");
+       }
        if (word.length() > 1) {
     	   if (this.isRoot()) {
     		   Character key = Character.valueOf(word.charAt(0));
@@ -81,6 +96,9 @@ public class MTrieNode implements TrieNode {
     		   } else {
     			   this.children.put(key, new MTrieNode(word, this.depth + 1));
     		   }
+    		   if (this.maintained != null) {
+    			   repairHeuristics(word);
+    		   }
     	   }
     	   else {
     		   Character key = Character.valueOf(word.charAt(1));
@@ -98,6 +116,35 @@ public class MTrieNode implements TrieNode {
        }
    }
 
+   // Brings the heuristics on word's path up to date from the leaf up, stopping at the first node
+   // whose value does not change since its ancestors cannot change either.
+   private void repairHeuristics(String word) {
+	   MTrieNode[] path = new MTrieNode[word.length()];
+	   MTrieNode node = this;
+	   for (int i = 0; i < word.length(); i++) {
+		   node = (MTrieNode) node.children.get(Character.valueOf(word.charAt(i)));
+		   path[i] = node;
+	   }
+	   for (int i = path.length - 1; i >= 0; i--) {
+		   MTrieNode step = path[i];
+		   int value = step.isLeaf() ? this.maintained.getLeafHeuristic(step.depth) : step.getMaxChildHeuristic();
+		   if (step.isHeuristicSet && step.heuristic == value) {
+			   break;
+		   }
+		   step.setHeuristic(value);
+	   }
+   }
+
+   private int getMaxChildHeuristic() {
+	   int max = 0;
+	   for (TrieNode child : this.children.values()) {
+		   if (child.getHeuristic() > max) {
+			   max = child.getHeuristic();
+		   }
+	   }
+	   return max;
+   }
+
    public void loadDictionary(File dictionary) throws Exception {
 	   try {
 		   BufferedReader is = null;
@@ -106,6 +153,9 @@ public class MTrieNode implements TrieNode {
 			   String line = null;
 			   while ((line = is.readLine()) != null) {
 				   this.attach(line.toLowerCase());
+				   if (this.deleteIndex != null) {
+					   this.deleteIndex.add(line);
+				   }
 			   }
 		   } finally {
 			   is.close();
@@ -130,7 +180,7 @@ public class MTrieNode implements TrieNode {
 		   return results;
 	   }
 	   
-	   if (!this.isHeuristicSet()){
+	   if (!this.isHeuristicSet() && this.maintained == null && !this.frozen){
 		   // Set default heuristic to Find By Longest if not set.
 		   Heuristic def = new FindByLongest();
 		   try {
@@ -138,6 +188,8 @@ public class MTrieNode implements TrieNode {
 		   } catch (Exception e) {
 			   e.printStackTrace();
 		   }
+	   } else if (this.isRoot()) {
+		   refreshHeuristics();
 	   }
 
 	   gatherResultsByHeuristic(word.toLowerCase(), queue, results, maxResults);
@@ -280,6 +332,9 @@ public class MTrieNode implements TrieNode {
    }
    
    public void setHeuristic(int heuristic) {
+	   if (this.frozen) {
+		   throw new IllegalStateException("Cannot change the heuristics of a frozen trie");
+	   }
 	   this.heuristic = heuristic;
 	   this.isHeuristicSet = true;
    }
@@ -296,6 +351,170 @@ public class MTrieNode implements TrieNode {
 	   return this.value == null;
    }
 
+   /**
+    * @return the symmetric delete index filled by loadDictionary, or null if none was set
+    */
+   public SymmetricDeleteIndex getDeleteIndex() {
+	   return deleteIndex;
+   }
+
+   /**
+    * @param deleteIndex index to fill with every word read by loadDictionary
+    */
+   public void setDeleteIndex(SymmetricDeleteIndex deleteIndex) {
+	   this.deleteIndex = deleteIndex;
+   }
+
+   /**
+    * Makes the trie read only, keeping the heuristics it has or FindByLongest's if none were set.
+    * Afterwards attach and setHeuristic throw, searches no longer write to any node, and the trie
+    * can be searched from many threads at once once it has been handed to them.
+    */
+   public void freeze() throws Exception {
+	   if (!this.isHeuristicSet && this.maintained == null) {
+		   new FindByLongest().setTreeHeuristics(this);
+	   } else {
+		   refreshHeuristics();
+	   }
+	   freezeTree();
+   }
+
+   /**
+    * As freeze(), with the heuristics set by heuristic.
+    */
+   public void freeze(Heuristic heuristic) throws Exception {
+	   heuristic.setTreeHeuristics(this);
+	   freezeTree();
+   }
+
+   private void freezeTree() {
+	   if (!this.isRoot()) {
+		   throw new IllegalStateException("Only the root of a trie can be frozen");
+	   }
+	   List <MTrieNode> stack = new ArrayList <MTrieNode> ();
+	   stack.add(this);
+	   while (!stack.isEmpty()) {
+		   MTrieNode node = stack.remove(stack.size() - 1);
+		   node.frozen = true;
+		   for (TrieNode child : node.children.values()) {
+			   stack.add((MTrieNode) child);
+		   }
+	   }
+   }
+
+   /**
+    * Marks the heuristics of the node at prefix and its whole subtree as out of date, for
+    * refreshHeuristics to recompute, as after setting some of them by hand.
+    *
+    * @return false if no node has that prefix
+    */
+   public boolean markDirty(String prefix) {
+	   if (!this.isRoot()) {
+		   throw new IllegalStateException("Only the root of a trie can mark nodes dirty");
+	   }
+	   if (this.frozen) {
+		   throw new IllegalStateException("Cannot change the heuristics of a frozen trie");
+	   }
+	   List <MTrieNode> path = new ArrayList <MTrieNode> ();
+	   MTrieNode node = this;
+	   path.add(node);
+	   for (int i = 0; i < prefix.length(); i++) {
+		   node = (MTrieNode) node.children.get(Character.valueOf(prefix.charAt(i)));
+		   if (node == null) {
+			   return false;
+		   }
+		   path.add(node);
+	   }
+	   for (MTrieNode step : path) {
+		   step.dirty = (byte) Math.max(step.dirty, DIRTY_BELOW);
+	   }
+	   node.dirty = DIRTY;
+	   return true;
+   }
+
+   /**
+    * Recomputes the heuristics of the subtrees marked dirty, and of their ancestors, with the
+    * maintained heuristic. Clean subtrees are not visited.
+    */
+   public void refreshHeuristics() {
+	   if (this.dirty == CLEAN) {
+		   return;
+	   }
+	   if (this.maintained == null) {
+		   try {
+			   new FindByLongest().setTreeHeuristics(this);
+		   } catch (Exception e) {
+			   throw new IllegalStateException(e);
+		   }
+		   return;
+	   }
+	   refresh(this.maintained);
+   }
+
+   private void refresh(IncrementalHeuristic h) {
+	   if (this.dirty == DIRTY) {
+		   recompute(h);
+		   return;
+	   }
+	   for (TrieNode child : this.children.values()) {
+		   if (((MTrieNode) child).dirty != CLEAN) {
+			   ((MTrieNode) child).refresh(h);
+		   }
+	   }
+	   this.dirty = CLEAN;
+	   if (!this.isRoot()) {
+		   this.setHeuristic(this.isLeaf() ? h.getLeafHeuristic(this.depth) : getMaxChildHeuristic());
+	   }
+   }
+
+   private void recompute(IncrementalHeuristic h) {
+	   for (TrieNode child : this.children.values()) {
+		   ((MTrieNode) child).recompute(h);
+	   }
+	   this.dirty = CLEAN;
+	   if (!this.isRoot()) {
+		   this.setHeuristic(this.isLeaf() ? h.getLeafHeuristic(this.depth) : getMaxChildHeuristic());
+	   }
+   }
+
+   /**
+    * Called by an IncrementalHeuristic before it sets every heuristic of this trie, which attach
+    * then keeps up to date.
+    */
+   public void setMaintainedHeuristic(IncrementalHeuristic heuristic) {
+	   if (!this.isRoot()) {
+		   throw new IllegalStateException("Only the root of a trie maintains heuristics");
+	   }
+	   if (this.frozen) {
+		   throw new IllegalStateException("Cannot change the heuristics of a frozen trie");
+	   }
+	   this.maintained = heuristic;
+	   clean();
+   }
+
+   private void clean() {
+	   if (this.dirty != CLEAN) {
+		   this.dirty = CLEAN;
+		   for (TrieNode child : this.children.values()) {
+			   ((MTrieNode) child).clean();
+		   }
+	   }
+   }
+
+   /**
+    * @return the heuristic attach keeps this trie's heuristics up to date with, or null
+    */
+   public IncrementalHeuristic getMaintainedHeuristic() {
+	   return maintained;
+   }
+
+   /**
+    * @return whether freeze has been called on this node's trie
+    */
+   public boolean isFrozen() {
+	   return frozen;
+   }
+
    /**
     * @return the isHeuristicSet
     */
@@ -0,0 +1,340 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.northps.blur.TrieNode;
+import com.northps.blur.util.CompletionSearch;
+
+/**
+ * Read only trie served straight from a memory mapped file. Opening a file only checks its
+ * header, so startup does not depend on the dictionary size, and every process mapping the
+ * same file shares its pages.
+ *
+ * File layout, big endian:
+ *   header: int magic "BLUR", int version, int node count, int TrieLayout ordinal
+ *   nodes:  one 20 byte record per node in that layout's order, the root first:
+ *           int parent, int first child, int child count, int heuristic, char label, short flags
+ * Children of a node are consecutive records sorted by label, so edges need no storage of their
+ * own and a child is found by binary search. Flag bit 0 marks nodes where a word ends.
+ *
+ * Heuristics are read from the file. Setting a heuristic to the value already stored is free;
+ * the first different value copies all heuristics to the heap so the mapping stays read only.
+ */
+public class MappedTrie {
+	public static final int MAGIC = 0x424c5552;
+	public static final int VERSION = 1;
+	public static final int ROOT = 0;
+	public static final int NONE = -1;
+
+	private static final int HEADER_SIZE = 16;
+	private static final int RECORD_SIZE = 20;
+	private static final int PARENT = 0;
+	private static final int FIRST_CHILD = 4;
+	private static final int CHILD_COUNT = 8;
+	private static final int HEURISTIC = 12;
+	private static final int LABEL = 16;
+	private static final int FLAGS = 18;
+	private static final int WORD_FLAG = 1;
+
+	private final ByteBuffer buffer;
+	private final int size;
+	private volatile int[] heuristics = null; // heap copy, once a heuristic differs from the file
+
+	private MappedTrie(ByteBuffer buffer) throws IOException {
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a blur trie file");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported blur trie version " + buffer.getInt(4));
+		}
+		this.size = buffer.getInt(8);
+		if (buffer.getInt(12) < 0 || buffer.getInt(12) >= TrieLayout.values().length) {
+			throw new IOException("Unknown blur trie layout " + buffer.getInt(12));
+		}
+		if (this.size < 1 || (long) this.size * RECORD_SIZE + HEADER_SIZE > buffer.capacity()) {
+			throw new IOException("Truncated blur trie file");
+		}
+		this.buffer = buffer;
+	}
+
+	public static MappedTrie open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new MappedTrie(buffer);
+		} finally {
+			// the mapping outlives the channel
+			raf.close();
+		}
+	}
+
+	public static void write(TrieNode root, File file) throws Exception {
+		write(root, file, TrieLayout.BREADTH_FIRST);
+	}
+
+	// Writes the trie under root with its current heuristics, defaulting an MTrieNode to
+	// FindByLongest as its findByHeuristic would, and its records in the given layout. Leaves are
+	// always flagged as words; nodes of a DoubleArrayTrie also keep the words that end above a leaf.
+	public static void write(TrieNode root, File file, TrieLayout layout) throws Exception {
+		if (!root.isRoot()) {
+			throw new IllegalArgumentException("Only a root node can be written");
+		}
+		if (root instanceof MTrieNode && !((MTrieNode) root).isHeuristicSet()) {
+			new FindByLongest().setTreeHeuristics(root);
+		}
+
+		// number the nodes breadth first, the order layouts start from
+		List<TrieNode> queue = new ArrayList<TrieNode>();
+		queue.add(root);
+		int[] parents = new int[1024];
+		int[] firstChild = new int[1024];
+		int[] childCount = new int[1024];
+		int[] heuristics = new int[1024];
+		char[] labels = new char[1024];
+		short[] flags = new short[1024];
+		parents[0] = NONE;
+		for (int index = 0; index < queue.size(); index++) {
+			TrieNode node = queue.get(index);
+			queue.set(index, null);
+			// views build a new map on every call
+			Map<Character, TrieNode> children = node.getChildren();
+			if (queue.size() + children.size() > parents.length) {
+				int grown = Math.max(parents.length * 2, queue.size() + children.size());
+				parents = Arrays.copyOf(parents, grown);
+				firstChild = Arrays.copyOf(firstChild, grown);
+				childCount = Arrays.copyOf(childCount, grown);
+				heuristics = Arrays.copyOf(heuristics, grown);
+				labels = Arrays.copyOf(labels, grown);
+				flags = Arrays.copyOf(flags, grown);
+			}
+			List<Character> keys = new ArrayList<Character>(children.keySet());
+			Collections.sort(keys);
+			firstChild[index] = queue.size();
+			childCount[index] = keys.size();
+			heuristics[index] = node.getHeuristic();
+			labels[index] = node.isRoot() ? 0 : node.getValue().charValue();
+			boolean word = node.isLeaf()
+					|| (node instanceof DoubleArrayTrieNode && ((DoubleArrayTrieNode) node).isWord());
+			flags[index] = (short) (word && !node.isRoot() ? WORD_FLAG : 0);
+			for (Character key : keys) {
+				parents[queue.size()] = index;
+				queue.add(children.get(key));
+			}
+		}
+		int size = queue.size();
+		int[] order = layout.order(Arrays.copyOf(firstChild, size), Arrays.copyOf(childCount, size),
+				Arrays.copyOf(heuristics, size));
+		int[] position = new int[size];
+		for (int i = 0; i < size; i++) {
+			position[order[i]] = i;
+		}
+
+		DataOutputStream os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		try {
+			os.writeInt(MAGIC);
+			os.writeInt(VERSION);
+			os.writeInt(size);
+			os.writeInt(layout.ordinal());
+			for (int i = 0; i < size; i++) {
+				int node = order[i];
+				os.writeInt(parents[node] == NONE ? NONE : position[parents[node]]);
+				os.writeInt(childCount[node] == 0 ? 0 : position[firstChild[node]]);
+				os.writeInt(childCount[node]);
+				os.writeInt(heuristics[node]);
+				os.writeChar(labels[node]);
+				os.writeShort(flags[node]);
+			}
+		} finally {
+			os.close();
+		}
+	}
+
+	/**
+	 * @return a TrieNode view of the root, usable with any Heuristic
+	 */
+	public TrieNode getRootNode() {
+		return new MappedTrieNode(this, ROOT, 0);
+	}
+
+	// Returns the child of node on c, or NONE.
+	public int getChild(int node, char c) {
+		int low = getInt(node, FIRST_CHILD);
+		int high = low + getInt(node, CHILD_COUNT) - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char label = getLabel(mid);
+			if (label < c) {
+				low = mid + 1;
+			} else if (label > c) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return NONE;
+	}
+
+	// Follows prefix from node, returning NONE if it falls off the trie.
+	public int walk(int node, CharSequence prefix) {
+		for (int i = 0; i < prefix.length() && node != NONE; i++) {
+			node = getChild(node, prefix.charAt(i));
+		}
+		return node;
+	}
+
+	public int getChildCount(int node) {
+		return getInt(node, CHILD_COUNT);
+	}
+
+	// Children are ordered by label.
+	public int getChildAt(int node, int i) {
+		return getInt(node, FIRST_CHILD) + i;
+	}
+
+	public char getLabel(int node) {
+		return this.buffer.getChar(HEADER_SIZE + node * RECORD_SIZE + LABEL);
+	}
+
+	public int getParent(int node) {
+		return getInt(node, PARENT);
+	}
+
+	public boolean isLeaf(int node) {
+		return getInt(node, CHILD_COUNT) == 0;
+	}
+
+	public boolean isWord(int node) {
+		return (this.buffer.getShort(HEADER_SIZE + node * RECORD_SIZE + FLAGS) & WORD_FLAG) != 0;
+	}
+
+	public int getHeuristic(int node) {
+		int[] copy = this.heuristics;
+		return copy != null ? copy[node] : getInt(node, HEURISTIC);
+	}
+
+	public synchronized void setHeuristic(int node, int heuristic) {
+		if (this.heuristics == null) {
+			if (getInt(node, HEURISTIC) == heuristic) {
+				return;
+			}
+			int[] copy = new int[this.size];
+			for (int i = 0; i < this.size; i++) {
+				copy[i] = getInt(i, HEURISTIC);
+			}
+			this.heuristics = copy;
+		}
+		this.heuristics[node] = heuristic;
+	}
+
+	public TrieLayout getLayout() {
+		return TrieLayout.values()[this.buffer.getInt(12)];
+	}
+
+	// True once a heuristic differing from the file has been set.
+	public boolean isHeuristicCopied() {
+		return this.heuristics != null;
+	}
+
+	// Returns the characters on the path from the root to node.
+	public String getPrefix(int node) {
+		StringBuilder buf = new StringBuilder();
+		for (; node != ROOT; node = getParent(node)) {
+			buf.append(getLabel(node));
+		}
+		return buf.reverse().toString();
+	}
+
+	/**
+	 * @return number of nodes, including the root
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Completions of word in order of decreasing heuristic, as MTrieNode.findByHeuristic returns
+	// them. Leaves with no positive heuristic are never reported.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		if (word.length() == 0) {
+			return results;
+		}
+		int node = walk(ROOT, word.toLowerCase());
+		if (node == NONE || isLeaf(node)) {
+			return results;
+		}
+
+		return new Completions().complete(node, word.toLowerCase(), maxResults);
+	}
+
+	// Completions below a node, through its children with a positive heuristic.
+	private final class Completions extends CompletionSearch {
+		protected boolean isLeaf(int node) {
+			return MappedTrie.this.isLeaf(node);
+		}
+
+		protected void expand(int node) {
+			int first = getInt(node, FIRST_CHILD);
+			int count = getChildCount(node);
+			for (int child = first; child < first + count; child++) {
+				int heuristic = getHeuristic(child);
+				if (heuristic > 0) {
+					add(child, heuristic);
+				}
+			}
+		}
+
+		protected void spell(int node, char[] buf, int end) {
+			buf[end - 1] = getLabel(node);
+		}
+	}
+
+	private int getInt(int node, int field) {
+		return this.buffer.getInt(HEADER_SIZE + node * RECORD_SIZE + field);
+	}
+
+	public String toString() {
+		return "MappedTrie[nodes=" + this.size + ", bytes=" + this.buffer.capacity() + ", layout=" + getLayout() + "]";
+	}
+}
@@ -0,0 +1,427 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.northps.blur.IncrementalHeuristic;
+import com.northps.blur.MaintainedHeuristics;
+import com.northps.blur.TrieNode;
+import com.northps.blur.util.CompletionSearch;
+import com.northps.blur.util.DictionaryReader;
+
+/**
+ * Path compressed (radix) trie. Chains of single children collapse into one node whose edge
+ * label is a range of a character buffer shared by the whole trie, so attach and
+ * findByHeuristic step over a whole run per node. It holds the same words as MTrieNode and
+ * reports results the same way, at leaves.
+ *
+ * For code that walks one character at a time, getChildren presents the uncompressed trie: an
+ * edge longer than one character shows up as a chain of views ending at the real node. A view
+ * shares the heuristic and id of the node its edge leads to, and a real node's value is the last
+ * character of its edge.
+ */
+public class PatriciaTrieNode implements TrieNode, MaintainedHeuristics {
+	private static int guid = 0;
+
+	private final Labels labels;
+	private final int id;
+	private final Map<Character, PatriciaTrieNode> children = new HashMap<Character, PatriciaTrieNode>(4);
+	private int start; // edge label is labels.chars[start, start + length)
+	private int length;
+	private int depth; // depth of the last character of the edge
+	private int heuristic = 0;
+	private boolean isHeuristicSet = false;
+	private IncrementalHeuristic maintained = null; // of a root, kept up to date by attach
+
+	private static synchronized int getGuid() {
+		guid++;
+		return guid;
+	}
+
+	public PatriciaTrieNode() {
+		this(new Labels(), 0, 0, 0);
+		this.labels.root = this;
+	}
+
+	private PatriciaTrieNode(Labels labels, int start, int length, int depth) {
+		this.id = getGuid();
+		this.labels = labels;
+		this.start = start;
+		this.length = length;
+		this.depth = depth;
+	}
+
+	public void attach(String word) {
+		if (word.length() <= 1) {
+			return;
+		}
+		if (!isRoot()) {
+			throw new UnsupportedOperationException("Words can only be attached to the root");
+		}
+		insert(word);
+		if (this.maintained != null) {
+			repairHeuristics(word);
+		}
+	}
+
+	private void insert(String word) {
+		char[] chars = this.labels.chars;
+		PatriciaTrieNode node = this;
+		int i = 0;
+		while (true) {
+			PatriciaTrieNode child = node.children.get(Character.valueOf(word.charAt(i)));
+			if (child == null) {
+				node.addChild(newLeaf(word, i, node.depth));
+				return;
+			}
+			int j = 1;
+			while (j < child.length && i + j < word.length() && chars[child.start + j] == word.charAt(i + j)) {
+				j++;
+			}
+			if (j == child.length) {
+				i += j;
+				if (i == word.length()) {
+					return;
+				}
+				if (child.isLeaf()) {
+					// the word runs past a leaf: lengthen its edge rather than add a chain
+					int rest = word.length() - i;
+					child.start = this.labels.append(word, i - child.length, word.length());
+					child.length += rest;
+					child.depth += rest;
+					return;
+				}
+				node = child;
+			} else if (i + j == word.length()) {
+				// already a prefix of a longer word
+				return;
+			} else {
+				PatriciaTrieNode split = new PatriciaTrieNode(this.labels, child.start, j, child.depth - child.length + j);
+				child.start += j;
+				child.length -= j;
+				node.addChild(split);
+				split.addChild(child);
+				split.addChild(newLeaf(word, i + j, split.depth));
+				return;
+			}
+		}
+	}
+
+	// Brings the heuristics on word's path up to date from the leaf up, stopping at the first node
+	// whose value does not change since its ancestors cannot change either. A split or lengthened
+	// edge is on the path, so its new depth is picked up too.
+	private void repairHeuristics(String word) {
+		List<PatriciaTrieNode> path = new ArrayList<PatriciaTrieNode>();
+		PatriciaTrieNode node = this;
+		for (int i = 0; i < word.length(); i += node.length) {
+			node = node.children.get(Character.valueOf(word.charAt(i)));
+			path.add(node);
+		}
+		for (int i = path.size() - 1; i >= 0; i--) {
+			PatriciaTrieNode step = path.get(i);
+			int value = step.isLeaf() ? this.maintained.getLeafHeuristic(step.depth) : step.getMaxChildHeuristic();
+			if (step.isHeuristicSet && step.heuristic == value) {
+				break;
+			}
+			step.setHeuristic(value);
+		}
+	}
+
+	private int getMaxChildHeuristic() {
+		int max = 0;
+		for (PatriciaTrieNode child : this.children.values()) {
+			if (child.heuristic > max) {
+				max = child.heuristic;
+			}
+		}
+		return max;
+	}
+
+	private PatriciaTrieNode newLeaf(String word, int from, int parentDepth) {
+		int start = this.labels.append(word, from, word.length());
+		int length = word.length() - from;
+		return new PatriciaTrieNode(this.labels, start, length, parentDepth + length);
+	}
+
+	private void addChild(PatriciaTrieNode child) {
+		this.children.put(Character.valueOf(this.labels.chars[child.start]), child);
+	}
+
+	public void loadDictionary(File dictionary) throws Exception {
+		for (String word : DictionaryReader.readWords(dictionary)) {
+			this.attach(word);
+		}
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Completions of word in order of decreasing heuristic, as MTrieNode.findByHeuristic returns
+	// them, found from the root whichever node this is.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		PatriciaTrieNode root = getRoot();
+		if (word.length() == 0 || root == null) {
+			return results;
+		}
+		if (!root.isHeuristicSet && root.maintained == null) {
+			FindByLongest.setDefaultHeuristics(root);
+		}
+		word = word.toLowerCase();
+
+		PatriciaTrieNode node = root;
+		char[] chars = this.labels.chars;
+		int i = 0;
+		while (i < word.length()) {
+			PatriciaTrieNode child = node.children.get(Character.valueOf(word.charAt(i)));
+			if (child == null) {
+				return results;
+			}
+			for (int j = 1; j < child.length && i + j < word.length(); j++) {
+				if (chars[child.start + j] != word.charAt(i + j)) {
+					return results;
+				}
+			}
+			node = child;
+			i += child.length;
+		}
+		// word may end inside the edge of node, whose leaf is then its only completion
+		String prefix = word.substring(0, node.depth - node.length) + node.getLabel();
+		if (node.isLeaf()) {
+			if (i > word.length()) {
+				results.add(prefix);
+			}
+			return results;
+		}
+		return new Completions().complete(node, prefix, maxResults);
+	}
+
+	// Completions below a node, through its children with a positive heuristic.
+	private static final class Completions extends CompletionSearch.Nodes<PatriciaTrieNode> {
+		protected boolean isLeaf(PatriciaTrieNode node) {
+			return node.isLeaf();
+		}
+
+		protected int getHeuristic(PatriciaTrieNode node) {
+			return node.heuristic;
+		}
+
+		protected void addChildren(PatriciaTrieNode node, List<PatriciaTrieNode> children) {
+			for (PatriciaTrieNode child : node.children.values()) {
+				if (child.heuristic > 0) {
+					children.add(child);
+				}
+			}
+		}
+
+		protected void spell(PatriciaTrieNode node, char[] buf, int end) {
+			System.arraycopy(node.labels.chars, node.start, buf, end - node.length, node.length);
+		}
+
+		protected int getLength(PatriciaTrieNode node) {
+			return node.length;
+		}
+	}
+
+	// Only the root is reachable from any node, through the trie it was created in.
+	private PatriciaTrieNode getRoot() {
+		return this.labels.root;
+	}
+
+	public boolean isLeaf() {
+		return this.children.isEmpty();
+	}
+
+	public boolean isRoot() {
+		return this.length == 0;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	/**
+	 * @return number of compressed nodes under and including this one
+	 */
+	public int size() {
+		int size = 1;
+		for (PatriciaTrieNode child : this.children.values()) {
+			size += child.size();
+		}
+		return size;
+	}
+
+	public Map<Character, TrieNode> getChildren() {
+		return viewChildren(this.children);
+	}
+
+	private static Map<Character, TrieNode> viewChildren(Map<Character, PatriciaTrieNode> children) {
+		Map<Character, TrieNode> views = new LinkedHashMap<Character, TrieNode>(children.size() * 2);
+		for (Map.Entry<Character, PatriciaTrieNode> child : children.entrySet()) {
+			PatriciaTrieNode node = child.getValue();
+			views.put(child.getKey(), node.length == 1 ? (TrieNode) node : new EdgeView(node, 0));
+		}
+		return views;
+	}
+
+	public int getId() {
+		return this.id;
+	}
+
+	public Character getValue() {
+		return isRoot() ? null : Character.valueOf(this.labels.chars[this.start + this.length - 1]);
+	}
+
+	// The characters of this node's edge.
+	public String getLabel() {
+		return new String(this.labels.chars, this.start, this.length);
+	}
+
+	public int getHeuristic() {
+		return this.heuristic;
+	}
+
+	public void setHeuristic(int heuristic) {
+		this.heuristic = heuristic;
+		this.isHeuristicSet = true;
+	}
+
+	public boolean isHeuristicSet() {
+		return this.isHeuristicSet;
+	}
+
+	// Called by an IncrementalHeuristic before it sets every heuristic of this trie, which attach
+	// then keeps up to date.
+	public void setMaintainedHeuristic(IncrementalHeuristic heuristic) {
+		if (!isRoot()) {
+			throw new IllegalStateException("Only the root of a trie maintains heuristics");
+		}
+		this.maintained = heuristic;
+	}
+
+	public IncrementalHeuristic getMaintainedHeuristic() {
+		return this.maintained;
+	}
+
+	// attach has already repaired the path of every word added since the heuristics were set.
+	public void refreshHeuristics() {
+	}
+
+	public String toString() {
+		return isRoot() ? "" : getLabel();
+	}
+
+	// Characters of every edge label in the trie, and the trie's root.
+	private static final class Labels {
+		private char[] chars = new char[1024];
+		private int size = 0;
+		private PatriciaTrieNode root = null;
+
+		int append(String word, int from, int to) {
+			if (this.size + to - from > this.chars.length) {
+				this.chars = Arrays.copyOf(this.chars, Math.max(this.chars.length * 2, this.size + to - from));
+			}
+			word.getChars(from, to, this.chars, this.size);
+			this.size += to - from;
+			return this.size - (to - from);
+		}
+	}
+
+	// One character inside a compressed edge, shown as a node of the uncompressed trie.
+	private static final class EdgeView implements TrieNode {
+		private final PatriciaTrieNode node;
+		private final int offset; // always before the last character of the edge
+
+		EdgeView(PatriciaTrieNode node, int offset) {
+			this.node = node;
+			this.offset = offset;
+		}
+
+		public boolean isLeaf() {
+			return false;
+		}
+
+		public boolean isRoot() {
+			return false;
+		}
+
+		public int getDepth() {
+			return this.node.depth - this.node.length + 1 + this.offset;
+		}
+
+		public Map<Character, TrieNode> getChildren() {
+			Map<Character, TrieNode> views = new LinkedHashMap<Character, TrieNode>(2);
+			int next = this.offset + 1;
+			TrieNode child = next == this.node.length - 1 ? (TrieNode) this.node : new EdgeView(this.node, next);
+			views.put(Character.valueOf(this.node.labels.chars[this.node.start + next]), child);
+			return views;
+		}
+
+		public int getId() {
+			return this.node.id;
+		}
+
+		public Character getValue() {
+			return Character.valueOf(this.node.labels.chars[this.node.start + this.offset]);
+		}
+
+		public int getHeuristic() {
+			return this.node.heuristic;
+		}
+
+		// A chain has one leaf below it, so its heuristic is the real node's.
+		public void setHeuristic(int heuristic) {
+			this.node.setHeuristic(heuristic);
+		}
+
+		public void attach(String word) {
+			this.node.attach(word);
+		}
+
+		public void loadDictionary(File dictionary) throws Exception {
+			this.node.loadDictionary(dictionary);
+		}
+
+		public List<String> findByHeuristic(String word) {
+			return this.node.findByHeuristic(word);
+		}
+
+		public List<String> findByHeuristic(String word, int maxResults) {
+			return this.node.findByHeuristic(word, maxResults);
+		}
+
+		public String toString() {
+			return getValue().toString();
+		}
+	}
+}
@@ -0,0 +1,312 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.northps.blur.IncrementalHeuristic;
+import com.northps.blur.MaintainedHeuristics;
+import com.northps.blur.TrieNode;
+import com.northps.blur.util.CompletionSearch;
+import com.northps.blur.util.DictionaryReader;
+
+/**
+ * Immutable trie node. Adding a word copies only the nodes on its path and returns a new root,
+ * which shares every other subtree with the root it was made from, so any number of versions
+ * can be searched at once and a version costs memory in proportion to the paths it changed.
+ * A root carries the number of words added since the empty trie as its version.
+ *
+ * Heuristics are those FindByLongest would set and are computed as paths are copied, so only
+ * longest first completion is supported: FindByLongest leaves them as they are, and
+ * setHeuristic, which another heuristic would need, throws. attach and loadDictionary cannot
+ * change an immutable node and throw either; use plus, plusAll, build or load, or a
+ * VersionedTrie to publish versions to readers.
+ * Words and results are as for MTrieNode.
+ */
+public class PersistentTrieNode implements TrieNode, MaintainedHeuristics {
+	private static final AtomicInteger GUID = new AtomicInteger();
+	private static final FindByLongest MAINTAINED = new FindByLongest();
+
+	public static final PersistentTrieNode EMPTY = new PersistentTrieNode(null, 0, 0, new PersistentTrieNode[0], 0);
+
+	private final Character value;
+	private final int depth;
+	private final int id;
+	private final int heuristic;
+	private final PersistentTrieNode[] children; // sorted by character
+	private final int version; // of a root
+
+	private PersistentTrieNode(Character value, int depth, int heuristic, PersistentTrieNode[] children, int version) {
+		this.id = GUID.incrementAndGet();
+		this.value = value;
+		this.depth = depth;
+		this.heuristic = heuristic;
+		this.children = children;
+		this.version = version;
+	}
+
+	public static PersistentTrieNode load(File dictionary) throws Exception {
+		return build(DictionaryReader.readWords(dictionary));
+	}
+
+	// The root plusAll would give for words in sorted order, built bottom up with each node made
+	// once rather than copied for every word below it.
+	public static PersistentTrieNode build(Collection<String> words) {
+		TreeSet<String> sorted = new TreeSet<String>();
+		for (String word : words) {
+			if (word.length() > 1) {
+				sorted.add(word);
+			}
+		}
+		String[] array = sorted.toArray(new String[sorted.size()]);
+		return new PersistentTrieNode(null, 0, 0, build(array, 0, array.length, 0), array.length);
+	}
+
+	// Children at depth + 1 for words[from, to), which share their first depth characters.
+	private static PersistentTrieNode[] build(String[] words, int from, int to, int depth) {
+		if (from < to && words[from].length() == depth) {
+			from++; // the word ending here, which is this node
+		}
+		List<PersistentTrieNode> children = new ArrayList<PersistentTrieNode>();
+		while (from < to) {
+			char c = words[from].charAt(depth);
+			int end = from + 1;
+			while (end < to && words[end].charAt(depth) == c) {
+				end++;
+			}
+			PersistentTrieNode[] below = build(words, from, end, depth + 1);
+			int heuristic = depth + 1;
+			for (PersistentTrieNode child : below) {
+				heuristic = Math.max(heuristic, child.heuristic);
+			}
+			children.add(new PersistentTrieNode(Character.valueOf(c), depth + 1, heuristic, below, 0));
+			from = end;
+		}
+		return children.isEmpty() ? EMPTY.children : children.toArray(new PersistentTrieNode[children.size()]);
+	}
+
+	// A new root with word added, or this root if there is nothing to add.
+	public PersistentTrieNode plus(String word) {
+		if (!isRoot()) {
+			throw new UnsupportedOperationException("Words can only be added to a root");
+		}
+		if (word.length() <= 1) {
+			return this;
+		}
+		PersistentTrieNode[] copied = plus(this.children, word, 0);
+		if (copied == null) {
+			return this;
+		}
+		return new PersistentTrieNode(null, 0, 0, copied, this.version + 1);
+	}
+
+	public PersistentTrieNode plusAll(Collection<String> words) {
+		PersistentTrieNode root = this;
+		for (String word : words) {
+			root = root.plus(word);
+		}
+		return root;
+	}
+
+	// Copy of children, at depth i, with word added below them, or null if it is already there.
+	private static PersistentTrieNode[] plus(PersistentTrieNode[] children, String word, int i) {
+		int slot = search(children, word.charAt(i));
+		PersistentTrieNode child;
+		if (slot >= 0) {
+			PersistentTrieNode existing = children[slot];
+			if (i + 1 == word.length()) {
+				return null;
+			}
+			PersistentTrieNode[] copied = plus(existing.children, word, i + 1);
+			if (copied == null) {
+				return null;
+			}
+			child = new PersistentTrieNode(existing.value, existing.depth,
+					Math.max(existing.heuristic, word.length()), copied, 0);
+		} else {
+			child = branch(word, i);
+		}
+		PersistentTrieNode[] result;
+		if (slot >= 0) {
+			result = children.clone();
+			result[slot] = child;
+		} else {
+			slot = -slot - 1;
+			result = new PersistentTrieNode[children.length + 1];
+			System.arraycopy(children, 0, result, 0, slot);
+			result[slot] = child;
+			System.arraycopy(children, slot, result, slot + 1, children.length - slot);
+		}
+		return result;
+	}
+
+	// New nodes for word from i on.
+	private static PersistentTrieNode branch(String word, int i) {
+		PersistentTrieNode node = new PersistentTrieNode(Character.valueOf(word.charAt(word.length() - 1)),
+				word.length(), word.length(), EMPTY.children, 0);
+		for (int j = word.length() - 2; j >= i; j--) {
+			node = new PersistentTrieNode(Character.valueOf(word.charAt(j)), j + 1, word.length(),
+					new PersistentTrieNode[] {node}, 0);
+		}
+		return node;
+	}
+
+	// Slot of the child on c, or -(insertion point) - 1.
+	private static int search(PersistentTrieNode[] children, char c) {
+		int low = 0;
+		int high = children.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char label = children[mid].value.charValue();
+			if (label < c) {
+				low = mid + 1;
+			} else if (label > c) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -low - 1;
+	}
+
+	// Returns the child on c, or null.
+	public PersistentTrieNode getChild(char c) {
+		int slot = search(this.children, c);
+		return slot >= 0 ? this.children[slot] : null;
+	}
+
+	public int getVersion() {
+		return this.version;
+	}
+
+	public void attach(String word) {
+		throw new UnsupportedOperationException("A PersistentTrieNode is immutable, see plus");
+	}
+
+	public void loadDictionary(File dictionary) throws Exception {
+		throw new UnsupportedOperationException("A PersistentTrieNode is immutable, see load");
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Completions of word under this node in order of decreasing heuristic, as
+	// MTrieNode.findByHeuristic returns them from the root.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		if (word.length() == 0) {
+			return results;
+		}
+		word = word.toLowerCase();
+		PersistentTrieNode found = this;
+		for (int i = 0; i < word.length() && found != null; i++) {
+			found = found.getChild(word.charAt(i));
+		}
+		if (found == null) {
+			return results;
+		}
+		return new Completions().complete(found, word, maxResults);
+	}
+
+	// Completions below a node.
+	private static final class Completions extends CompletionSearch.Nodes<PersistentTrieNode> {
+		protected boolean isLeaf(PersistentTrieNode node) {
+			return node.children.length == 0;
+		}
+
+		protected int getHeuristic(PersistentTrieNode node) {
+			return node.heuristic;
+		}
+
+		protected void addChildren(PersistentTrieNode node, List<PersistentTrieNode> children) {
+			for (PersistentTrieNode child : node.children) {
+				children.add(child);
+			}
+		}
+
+		protected void spell(PersistentTrieNode node, char[] buf, int end) {
+			buf[end - 1] = node.value.charValue();
+		}
+	}
+
+	public boolean isLeaf() {
+		return this.children.length == 0;
+	}
+
+	public boolean isRoot() {
+		return this.value == null;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	public Map<Character, TrieNode> getChildren() {
+		Map<Character, TrieNode> map = new LinkedHashMap<Character, TrieNode>(this.children.length * 2);
+		for (PersistentTrieNode child : this.children) {
+			map.put(child.value, child);
+		}
+		return map;
+	}
+
+	public int getId() {
+		return this.id;
+	}
+
+	public Character getValue() {
+		return this.value;
+	}
+
+	public int getHeuristic() {
+		return this.heuristic;
+	}
+
+	public void setHeuristic(int heuristic) {
+		throw new UnsupportedOperationException("Heuristics are fixed when the path is copied");
+	}
+
+	public IncrementalHeuristic getMaintainedHeuristic() {
+		return MAINTAINED;
+	}
+
+	public void setMaintainedHeuristic(IncrementalHeuristic heuristic) {
+		throw new UnsupportedOperationException("Heuristics are fixed when the path is copied");
+	}
+
+	public void refreshHeuristics() {
+	}
+
+	public String toString() {
+		return isRoot() ? "" : this.value.toString();
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.northps.blur.Alphabet;
+
+/**
+ * Maps characters to small dense symbol ids. The alphabet's characters come first, in its
+ * order, so the common ones fit in a 64 bit child bitmap; Latin-1 characters resolve through
+ * an array, anything else through an overflow map. Characters outside the alphabet get the
+ * next free id the first time they are interned.
+ */
+public class SymbolTable {
+	public static final int NONE = -1;
+
+	private static final int DIRECT = 256;
+
+	private final int[] direct = new int[DIRECT];
+	private final Map<Character, Integer> overflow = new HashMap<Character, Integer>();
+	private char[] chars;
+	private int size = 0;
+
+	public SymbolTable() {
+		this(Alphabet.DEFAULT);
+	}
+
+	public SymbolTable(Alphabet alphabet) {
+		Arrays.fill(this.direct, NONE);
+		char[] symbols = alphabet.getSymbols();
+		this.chars = new char[Math.max(64, symbols.length)];
+		for (char c : symbols) {
+			intern(c);
+		}
+	}
+
+	// Returns the id of c, or NONE if it was never interned.
+	public int idOf(char c) {
+		if (c < DIRECT) {
+			return this.direct[c];
+		}
+		Integer id = this.overflow.get(Character.valueOf(c));
+		return id == null ? NONE : id.intValue();
+	}
+
+	public synchronized int intern(char c) {
+		int id = idOf(c);
+		if (id != NONE) {
+			return id;
+		}
+		id = this.size++;
+		if (id == this.chars.length) {
+			this.chars = Arrays.copyOf(this.chars, id * 2);
+		}
+		this.chars[id] = c;
+		if (c < DIRECT) {
+			this.direct[c] = id;
+		} else {
+			this.overflow.put(Character.valueOf(c), Integer.valueOf(id));
+		}
+		return id;
+	}
+
+	public char charOf(int id) {
+		return this.chars[id];
+	}
+
+	public int size() {
+		return this.size;
+	}
+}
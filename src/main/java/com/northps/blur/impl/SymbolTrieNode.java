@@ -0,0 +1,309 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.northps.blur.IncrementalHeuristic;
+import com.northps.blur.MaintainedHeuristics;
+import com.northps.blur.TrieNode;
+import com.northps.blur.util.CompletionSearch;
+import com.northps.blur.util.DictionaryReader;
+
+/**
+ * Trie node whose children are indexed by symbol id rather than by boxed Character. A node
+ * keeps a bitmap of the symbols it has children for and a compact array of those children in
+ * symbol order; a child's slot is the number of set bits below its symbol. Ids come from a
+ * SymbolTable shared by the whole trie and seeded from Fuzzy.ALPHABET, so the first 64 symbols
+ * need only one long. Words and results are as for MTrieNode.
+ */
+public class SymbolTrieNode implements TrieNode, MaintainedHeuristics {
+	private static final SymbolTrieNode[] NO_CHILDREN = new SymbolTrieNode[0];
+	private static int guid = 0;
+
+	private final SymbolTable symbols;
+	private final int symbol; // SymbolTable.NONE for the root
+	private final int depth;
+	private final int id;
+	private long low = 0L; // symbols 0 to 63
+	private long[] high = null; // symbols from 64 up, rarely used
+	private SymbolTrieNode[] children = NO_CHILDREN;
+	private int heuristic = 0;
+	private boolean isHeuristicSet = false;
+	private IncrementalHeuristic maintained = null; // of a root, kept up to date by attach
+
+	private static synchronized int getGuid() {
+		guid++;
+		return guid;
+	}
+
+	public SymbolTrieNode() {
+		this(new SymbolTable());
+	}
+
+	public SymbolTrieNode(SymbolTable symbols) {
+		this(symbols, SymbolTable.NONE, 0);
+	}
+
+	private SymbolTrieNode(SymbolTable symbols, int symbol, int depth) {
+		this.id = getGuid();
+		this.symbols = symbols;
+		this.symbol = symbol;
+		this.depth = depth;
+	}
+
+	public void attach(String word) {
+		if (word.length() <= 1) {
+			return;
+		}
+		if (!isRoot()) {
+			throw new UnsupportedOperationException("Words can only be attached to the root");
+		}
+		SymbolTrieNode node = this;
+		for (int i = 0; i < word.length(); i++) {
+			int symbol = this.symbols.intern(word.charAt(i));
+			SymbolTrieNode child = node.getChild(symbol);
+			if (child == null) {
+				child = new SymbolTrieNode(this.symbols, symbol, node.depth + 1);
+				node.addChild(child);
+			}
+			node = child;
+		}
+		if (this.maintained != null) {
+			repairHeuristics(word);
+		}
+	}
+
+	// Brings the heuristics on word's path up to date from the leaf up, stopping at the first node
+	// whose value does not change since its ancestors cannot change either.
+	private void repairHeuristics(String word) {
+		SymbolTrieNode[] path = new SymbolTrieNode[word.length()];
+		SymbolTrieNode node = this;
+		for (int i = 0; i < word.length(); i++) {
+			node = node.getChild(word.charAt(i));
+			path[i] = node;
+		}
+		for (int i = path.length - 1; i >= 0; i--) {
+			SymbolTrieNode step = path[i];
+			int value = step.isLeaf() ? this.maintained.getLeafHeuristic(step.depth) : step.getMaxChildHeuristic();
+			if (step.isHeuristicSet && step.heuristic == value) {
+				break;
+			}
+			step.setHeuristic(value);
+		}
+	}
+
+	private int getMaxChildHeuristic() {
+		int max = 0;
+		for (SymbolTrieNode child : this.children) {
+			if (child.heuristic > max) {
+				max = child.heuristic;
+			}
+		}
+		return max;
+	}
+
+	// Returns the child for symbol id, or null.
+	public SymbolTrieNode getChild(int symbol) {
+		if (symbol < 64) {
+			if ((this.low & (1L << symbol)) == 0) {
+				return null;
+			}
+			return this.children[Long.bitCount(this.low & ((1L << symbol) - 1))];
+		}
+		int word = (symbol >>> 6) - 1;
+		if (this.high == null || word >= this.high.length || (this.high[word] & (1L << symbol)) == 0) {
+			return null;
+		}
+		return this.children[rank(symbol)];
+	}
+
+	public SymbolTrieNode getChild(char c) {
+		int symbol = this.symbols.idOf(c);
+		return symbol == SymbolTable.NONE ? null : getChild(symbol);
+	}
+
+	// Number of children with a smaller symbol.
+	private int rank(int symbol) {
+		if (symbol < 64) {
+			return Long.bitCount(this.low & ((1L << symbol) - 1));
+		}
+		int rank = Long.bitCount(this.low);
+		int word = (symbol >>> 6) - 1;
+		for (int i = 0; i < word && this.high != null && i < this.high.length; i++) {
+			rank += Long.bitCount(this.high[i]);
+		}
+		if (this.high != null && word < this.high.length) {
+			rank += Long.bitCount(this.high[word] & ((1L << symbol) - 1));
+		}
+		return rank;
+	}
+
+	private void addChild(SymbolTrieNode child) {
+		int symbol = child.symbol;
+		int slot = rank(symbol);
+		if (symbol < 64) {
+			this.low |= 1L << symbol;
+		} else {
+			int word = (symbol >>> 6) - 1;
+			if (this.high == null) {
+				this.high = new long[word + 1];
+			} else if (word >= this.high.length) {
+				this.high = Arrays.copyOf(this.high, word + 1);
+			}
+			this.high[word] |= 1L << symbol;
+		}
+		SymbolTrieNode[] grown = new SymbolTrieNode[this.children.length + 1];
+		System.arraycopy(this.children, 0, grown, 0, slot);
+		grown[slot] = child;
+		System.arraycopy(this.children, slot, grown, slot + 1, this.children.length - slot);
+		this.children = grown;
+	}
+
+	public void loadDictionary(File dictionary) throws Exception {
+		for (String word : DictionaryReader.readWords(dictionary)) {
+			this.attach(word);
+		}
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Completions of word under this node in order of decreasing heuristic, as
+	// MTrieNode.findByHeuristic returns them from the root.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		if (word.length() == 0) {
+			return results;
+		}
+		if (isRoot() && !this.isHeuristicSet && this.maintained == null) {
+			FindByLongest.setDefaultHeuristics(this);
+		}
+		word = word.toLowerCase();
+		SymbolTrieNode found = this;
+		for (int i = 0; i < word.length() && found != null; i++) {
+			found = found.getChild(word.charAt(i));
+		}
+		if (found == null) {
+			return results;
+		}
+		return new Completions().complete(found, word, maxResults);
+	}
+
+	// Completions below a node, through its children with a positive heuristic.
+	private final class Completions extends CompletionSearch.Nodes<SymbolTrieNode> {
+		protected boolean isLeaf(SymbolTrieNode node) {
+			return node.children.length == 0;
+		}
+
+		protected int getHeuristic(SymbolTrieNode node) {
+			return node.heuristic;
+		}
+
+		protected void addChildren(SymbolTrieNode node, List<SymbolTrieNode> children) {
+			for (SymbolTrieNode child : node.children) {
+				if (child.heuristic > 0) {
+					children.add(child);
+				}
+			}
+		}
+
+		protected void spell(SymbolTrieNode node, char[] buf, int end) {
+			buf[end - 1] = SymbolTrieNode.this.symbols.charOf(node.symbol);
+		}
+	}
+
+	public SymbolTable getSymbols() {
+		return this.symbols;
+	}
+
+	public boolean isLeaf() {
+		return this.children.length == 0;
+	}
+
+	public boolean isRoot() {
+		return this.symbol == SymbolTable.NONE;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	public Map<Character, TrieNode> getChildren() {
+		Map<Character, TrieNode> map = new LinkedHashMap<Character, TrieNode>(this.children.length * 2);
+		for (SymbolTrieNode child : this.children) {
+			map.put(Character.valueOf(this.symbols.charOf(child.symbol)), child);
+		}
+		return map;
+	}
+
+	public int getId() {
+		return this.id;
+	}
+
+	public Character getValue() {
+		return isRoot() ? null : Character.valueOf(this.symbols.charOf(this.symbol));
+	}
+
+	public int getHeuristic() {
+		return this.heuristic;
+	}
+
+	public void setHeuristic(int heuristic) {
+		this.heuristic = heuristic;
+		this.isHeuristicSet = true;
+	}
+
+	public boolean isHeuristicSet() {
+		return this.isHeuristicSet;
+	}
+
+	// Called by an IncrementalHeuristic before it sets every heuristic of this trie, which attach
+	// then keeps up to date.
+	public void setMaintainedHeuristic(IncrementalHeuristic heuristic) {
+		if (!isRoot()) {
+			throw new IllegalStateException("Only the root of a trie maintains heuristics");
+		}
+		this.maintained = heuristic;
+	}
+
+	public IncrementalHeuristic getMaintainedHeuristic() {
+		return this.maintained;
+	}
+
+	// attach has already repaired the path of every word added since the heuristics were set.
+	public void refreshHeuristics() {
+	}
+
+	public String toString() {
+		return isRoot() ? "" : String.valueOf(this.symbols.charOf(this.symbol));
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order in which the nodes of a flattened trie are numbered. Every layout puts the root first
+ * and keeps the children of a node together, in label order, so a node only needs its first
+ * child and a count; what changes is where each block of siblings lands.
+ *
+ * Layouts work on a trie numbered breadth first, given as the first child and child count of
+ * every node, and return the breadth first number of the node at each new position.
+ */
+public enum TrieLayout {
+	/** Level by level, as the trie was numbered. */
+	BREADTH_FIRST {
+		@Override
+		public int[] order(int[] firstChild, int[] childCount, int[] heuristics) {
+			int[] order = new int[firstChild.length];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			return order;
+		}
+	},
+
+	/**
+	 * Depth first over sibling blocks, descending into the child with the largest heuristic
+	 * first. The blocks along the best completion of any node follow one another.
+	 */
+	HEURISTIC_DEPTH_FIRST {
+		@Override
+		public int[] order(int[] firstChild, int[] childCount, int[] heuristics) {
+			Layout layout = new Layout(firstChild, childCount);
+			layout.emit(0);
+			depthFirst(layout, heuristics, 0);
+			return layout.order;
+		}
+
+		private void depthFirst(Layout layout, int[] heuristics, int node) {
+			layout.emitChildren(node);
+			for (int child : byHeuristic(layout, heuristics, node)) {
+				if (layout.childCount[child] > 0) {
+					depthFirst(layout, heuristics, child);
+				}
+			}
+		}
+	},
+
+	/**
+	 * van Emde Boas over sibling blocks: the top half of the block tree's levels is laid out
+	 * recursively, then each subtree hanging below it, so any root to leaf walk crosses few
+	 * regions of memory whatever their size.
+	 */
+	VAN_EMDE_BOAS {
+		@Override
+		public int[] order(int[] firstChild, int[] childCount, int[] heuristics) {
+			Layout layout = new Layout(firstChild, childCount);
+			int[] heights = new int[firstChild.length];
+			for (int node = firstChild.length - 1; node >= 0; node--) {
+				// breadth first numbering puts children after their parent
+				for (int i = 0; i < childCount[node]; i++) {
+					int child = firstChild[node] + i;
+					heights[node] = Math.max(heights[node], heights[child] + (childCount[child] > 0 ? 1 : 0));
+				}
+			}
+			layout.emit(0);
+			if (childCount[0] > 0) {
+				vanEmdeBoas(layout, heuristics, heights, 0, heights[0] + 1);
+			}
+			return layout.order;
+		}
+
+		// Lays out the blocks below node down to levels block levels.
+		private void vanEmdeBoas(Layout layout, int[] heuristics, int[] heights, int node, int levels) {
+			levels = Math.min(levels, heights[node] + 1);
+			if (levels == 1) {
+				layout.emitChildren(node);
+				return;
+			}
+			int top = levels / 2;
+			vanEmdeBoas(layout, heuristics, heights, node, top);
+			List<Integer> frontier = new ArrayList<Integer>();
+			collect(layout, heuristics, node, top, frontier);
+			for (Integer below : frontier) {
+				vanEmdeBoas(layout, heuristics, heights, below.intValue(), levels - top);
+			}
+		}
+
+		// Nodes with children, depth block levels below node, best heuristic first.
+		private void collect(Layout layout, int[] heuristics, int node, int depth, List<Integer> frontier) {
+			for (int child : byHeuristic(layout, heuristics, node)) {
+				if (layout.childCount[child] == 0) {
+					continue;
+				}
+				if (depth == 1) {
+					frontier.add(Integer.valueOf(child));
+				} else {
+					collect(layout, heuristics, child, depth - 1, frontier);
+				}
+			}
+		}
+	};
+
+	/**
+	 * @param firstChild breadth first number of each node's first child
+	 * @param childCount number of children of each node
+	 * @param heuristics heuristic of each node
+	 * @return breadth first number of the node to put at each position
+	 */
+	public abstract int[] order(int[] firstChild, int[] childCount, int[] heuristics);
+
+	// Children of node by decreasing heuristic.
+	private static int[] byHeuristic(Layout layout, int[] heuristics, int node) {
+		int count = layout.childCount[node];
+		int[] children = new int[count];
+		for (int i = 0; i < count; i++) {
+			int child = layout.firstChild[node] + i;
+			int at = i;
+			while (at > 0 && heuristics[children[at - 1]] < heuristics[child]) {
+				children[at] = children[at - 1];
+				at--;
+			}
+			children[at] = child;
+		}
+		return children;
+	}
+
+	private static final class Layout {
+		private final int[] firstChild;
+		private final int[] childCount;
+		private final int[] order;
+		private int size = 0;
+
+		Layout(int[] firstChild, int[] childCount) {
+			this.firstChild = firstChild;
+			this.childCount = childCount;
+			this.order = new int[firstChild.length];
+		}
+
+		void emit(int node) {
+			this.order[this.size++] = node;
+		}
+
+		void emitChildren(int node) {
+			for (int i = 0; i < this.childCount[node]; i++) {
+				emit(this.firstChild[node] + i);
+			}
+		}
+	}
+}
@@ -0,0 +1,378 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import com.northps.blur.Word;
+import com.northps.blur.util.NodeHeap;
+
+/**
+ * Trie over the UTF-8 bytes of its words instead of their chars, so a node has at most 256
+ * children whatever the script and a supplementary character is a path of four bytes rather
+ * than a surrogate pair. Nodes are ints into parallel arrays, and the children of a node are a
+ * sibling list sorted by byte, which is also code point order.
+ *
+ * Dictionaries are read as UTF-8 and lowercased with Locale.ROOT, and words shorter than two
+ * code points are skipped. Unlike the char tries every word is a result, including one that is
+ * a prefix of another word. A node's heuristic is the length in code points of the longest word
+ * through it, as FindByLongest would set it, and is kept up to date as words are attached.
+ *
+ * fuzzySearch walks the bytes but measures edit distance in code points: a row of the distance
+ * matrix is only computed at a node that completes a character.
+ */
+public class Utf8Trie {
+	public static final int ROOT = 0;
+	public static final int NONE = -1;
+	public static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private int[] parents = new int[64];
+	private int[] firstChild = new int[64];
+	private int[] nextSibling = new int[64];
+	private int[] heuristics = new int[64];
+	private byte[] labels = new byte[64];
+	private final BitSet words = new BitSet();
+	private int size = 1;
+	private int wordCount = 0;
+
+	public Utf8Trie() {
+		this.parents[ROOT] = NONE;
+		this.firstChild[ROOT] = NONE;
+		this.nextSibling[ROOT] = NONE;
+	}
+
+	public static Utf8Trie load(File dictionary) throws Exception {
+		Utf8Trie trie = new Utf8Trie();
+		trie.loadDictionary(dictionary);
+		return trie;
+	}
+
+	// Lowercases independently of the default locale, so "I" is "i" on a Turkish system too.
+	public static String normalize(String word) {
+		return word.toLowerCase(Locale.ROOT);
+	}
+
+	public void loadDictionary(File dictionary) throws Exception {
+		BufferedReader is = new BufferedReader(new InputStreamReader(new FileInputStream(dictionary), UTF8));
+		try {
+			String line = null;
+			while ((line = is.readLine()) != null) {
+				this.attach(normalize(line));
+			}
+		} finally {
+			is.close();
+		}
+	}
+
+	public void attach(String word) {
+		int length = word.codePointCount(0, word.length());
+		if (length <= 1) {
+			return;
+		}
+		int node = ROOT;
+		for (byte b : word.getBytes(UTF8)) {
+			node = addChild(node, b);
+		}
+		if (!this.words.get(node)) {
+			this.words.set(node);
+			this.wordCount++;
+		}
+		for (int n = node; n != NONE && this.heuristics[n] < length; n = this.parents[n]) {
+			this.heuristics[n] = length;
+		}
+	}
+
+	private int addChild(int node, byte b) {
+		int previous = NONE;
+		int child = this.firstChild[node];
+		while (child != NONE && (this.labels[child] & 0xff) < (b & 0xff)) {
+			previous = child;
+			child = this.nextSibling[child];
+		}
+		if (child != NONE && this.labels[child] == b) {
+			return child;
+		}
+		if (this.size == this.parents.length) {
+			int grown = this.size * 2;
+			this.parents = Arrays.copyOf(this.parents, grown);
+			this.firstChild = Arrays.copyOf(this.firstChild, grown);
+			this.nextSibling = Arrays.copyOf(this.nextSibling, grown);
+			this.heuristics = Arrays.copyOf(this.heuristics, grown);
+			this.labels = Arrays.copyOf(this.labels, grown);
+		}
+		int added = this.size++;
+		this.parents[added] = node;
+		this.firstChild[added] = NONE;
+		this.nextSibling[added] = child;
+		this.heuristics[added] = 0;
+		this.labels[added] = b;
+		if (previous == NONE) {
+			this.firstChild[node] = added;
+		} else {
+			this.nextSibling[previous] = added;
+		}
+		return added;
+	}
+
+	// Returns the child of node on byte b, or NONE.
+	public int getChild(int node, byte b) {
+		for (int child = this.firstChild[node]; child != NONE; child = this.nextSibling[child]) {
+			if ((this.labels[child] & 0xff) >= (b & 0xff)) {
+				return this.labels[child] == b ? child : NONE;
+			}
+		}
+		return NONE;
+	}
+
+	// Follows the UTF-8 bytes of prefix from node, or returns NONE where the path ends.
+	public int walk(int node, String prefix) {
+		for (byte b : prefix.getBytes(UTF8)) {
+			if (node == NONE) {
+				break;
+			}
+			node = getChild(node, b);
+		}
+		return node;
+	}
+
+	public boolean contains(String word) {
+		int node = walk(ROOT, word);
+		return node != NONE && this.words.get(node);
+	}
+
+	public int getChildCount(int node) {
+		int count = 0;
+		for (int child = this.firstChild[node]; child != NONE; child = this.nextSibling[child]) {
+			count++;
+		}
+		return count;
+	}
+
+	public int getFirstChild(int node) {
+		return this.firstChild[node];
+	}
+
+	public int getNextSibling(int node) {
+		return this.nextSibling[node];
+	}
+
+	public int getParent(int node) {
+		return this.parents[node];
+	}
+
+	// The byte on the edge into node, 0 to 255.
+	public int getLabel(int node) {
+		return this.labels[node] & 0xff;
+	}
+
+	public boolean isWord(int node) {
+		return this.words.get(node);
+	}
+
+	public int getHeuristic(int node) {
+		return this.heuristics[node];
+	}
+
+	// Length in code points of the prefix ending at node, counting the bytes that start a character.
+	public int getLength(int node) {
+		int length = 0;
+		for (int n = node; n != ROOT; n = this.parents[n]) {
+			if ((this.labels[n] & 0xc0) != 0x80) {
+				length++;
+			}
+		}
+		return length;
+	}
+
+	public String getPrefix(int node) {
+		byte[] bytes = new byte[16];
+		int length = 0;
+		for (int n = node; n != ROOT; n = this.parents[n]) {
+			if (length == bytes.length) {
+				bytes = Arrays.copyOf(bytes, length * 2);
+			}
+			bytes[length++] = this.labels[n];
+		}
+		for (int i = 0, j = length - 1; i < j; i++, j--) {
+			byte b = bytes[i];
+			bytes[i] = bytes[j];
+			bytes[j] = b;
+		}
+		return new String(bytes, 0, length, UTF8);
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public int getWordCount() {
+		return this.wordCount;
+	}
+
+	// Bytes held by the node arrays, which does not depend on the script of the words.
+	public long getMemoryUsage() {
+		return (long) this.parents.length * 17 + this.words.size() / 8;
+	}
+
+	public List<String> findByHeuristic(String word) {
+		return findByHeuristic(word, 0);
+	}
+
+	// Words starting with word, longest first.
+	public List<String> findByHeuristic(String word, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		if (word.length() == 0) {
+			return results;
+		}
+		int found = walk(ROOT, normalize(word));
+		if (found == NONE) {
+			return results;
+		}
+		// a node is pushed under its heuristic, and a word under its own length with the sign bit set
+		NodeHeap heap = new NodeHeap();
+		heap.push(this.heuristics[found], found);
+		while (!heap.isEmpty() && (maxResults <= 0 || results.size() < maxResults)) {
+			int entry = heap.pop();
+			if (entry < 0) {
+				results.add(getPrefix(entry & Integer.MAX_VALUE));
+				continue;
+			}
+			if (this.words.get(entry)) {
+				heap.push(getLength(entry), entry | Integer.MIN_VALUE);
+			}
+			for (int child = this.firstChild[entry]; child != NONE; child = this.nextSibling[child]) {
+				heap.push(this.heuristics[child], child);
+			}
+		}
+		return results;
+	}
+
+	public List<Word> fuzzySearch(String query, int maxDistance) {
+		return fuzzySearch(query, maxDistance, false);
+	}
+
+	// Words within maxDistance code point edits of query, closest first. With transpositions,
+	// swapping two adjacent characters counts as one edit (optimal string alignment).
+	public List<Word> fuzzySearch(String query, int maxDistance, boolean transpositions) {
+		String normalized = normalize(query).trim();
+		int[] target = new int[normalized.codePointCount(0, normalized.length())];
+		for (int i = 0, offset = 0; i < target.length; i++) {
+			target[i] = normalized.codePointAt(offset);
+			offset += Character.charCount(target[i]);
+		}
+		Search search = new Search(target, maxDistance, transpositions);
+		search.walk(ROOT, 0, 0, 0);
+		Collections.sort(search.results);
+		return search.results;
+	}
+
+	// State of one fuzzySearch: the distance rows and code points of the path, by depth in code points.
+	private final class Search {
+		final int[] target;
+		final int maxDistance;
+		final boolean transpositions;
+		final int[][] rows;
+		final int[] path;
+		final List<Word> results = new ArrayList<Word>();
+
+		Search(int[] target, int maxDistance, boolean transpositions) {
+			this.target = target;
+			this.maxDistance = maxDistance;
+			this.transpositions = transpositions;
+			// no row deeper than this can be within maxDistance
+			this.rows = new int[target.length + maxDistance + 2][];
+			this.path = new int[this.rows.length];
+			this.rows[0] = new int[target.length + 1];
+			for (int j = 0; j <= target.length; j++) {
+				this.rows[0][j] = j;
+			}
+		}
+
+		// node ends a path of depth complete code points and pending continuation bytes of codePoint
+		void walk(int node, int depth, int codePoint, int pending) {
+			for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+				int b = labels[child] & 0xff;
+				int c;
+				int remaining;
+				if (pending == 0) {
+					remaining = b < 0x80 ? 0 : b < 0xe0 ? 1 : b < 0xf0 ? 2 : 3;
+					c = remaining == 0 ? b : b & (0x7f >> (remaining + 1));
+				} else {
+					remaining = pending - 1;
+					c = (codePoint << 6) | (b & 0x3f);
+				}
+				if (remaining > 0) {
+					walk(child, depth, c, remaining);
+				} else if (step(depth, c)) {
+					int[] row = this.rows[depth + 1];
+					if (words.get(child) && row[this.target.length] <= this.maxDistance) {
+						this.results.add(new Word(getPrefix(child), row[this.target.length]));
+					}
+					walk(child, depth + 1, 0, 0);
+				}
+			}
+		}
+
+		// Computes the row after reading c at depth, and returns whether any cell is within range.
+		boolean step(int depth, int c) {
+			if (depth + 1 >= this.rows.length) {
+				return false;
+			}
+			if (this.rows[depth + 1] == null) {
+				this.rows[depth + 1] = new int[this.target.length + 1];
+			}
+			int[] previous = this.rows[depth];
+			int[] row = this.rows[depth + 1];
+			this.path[depth] = c;
+			row[0] = depth + 1;
+			int min = row[0];
+			for (int j = 1; j <= this.target.length; j++) {
+				int cost = this.target[j - 1] == c ? 0 : 1;
+				int d = Math.min(Math.min(row[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+				if (this.transpositions && depth > 0 && j > 1 && this.target[j - 2] == c
+						&& this.target[j - 1] == this.path[depth - 1] && cost == 1) {
+					d = Math.min(d, this.rows[depth - 1][j - 2] + 1);
+				}
+				row[j] = d;
+				min = Math.min(min, d);
+			}
+			return min <= this.maxDistance;
+		}
+	}
+
+	public String toString() {
+		return "Utf8Trie[nodes=" + this.size + ", words=" + this.wordCount + "]";
+	}
+}
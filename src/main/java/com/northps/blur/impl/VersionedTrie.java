@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.impl;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The current version of a PersistentTrieNode trie, for serving searches while the dictionary
+ * changes. Readers take current() once per query and search that root; writers build the next
+ * version from it and publish it with a single compare-and-set of the reference, so a reader
+ * never sees a half built version and is never blocked.
+ *
+ * Nothing has to be released by hand: once no reader holds an old root, the nodes it does not
+ * share with newer versions are garbage.
+ */
+public class VersionedTrie {
+	private final AtomicReference<PersistentTrieNode> current;
+
+	public VersionedTrie() {
+		this(PersistentTrieNode.EMPTY);
+	}
+
+	public VersionedTrie(PersistentTrieNode root) {
+		if (!root.isRoot()) {
+			throw new IllegalArgumentException("Only a root can be published");
+		}
+		this.current = new AtomicReference<PersistentTrieNode>(root);
+	}
+
+	public PersistentTrieNode current() {
+		return this.current.get();
+	}
+
+	// Adds word to the current version, retrying if another writer published first.
+	public PersistentTrieNode attach(String word) {
+		while (true) {
+			PersistentTrieNode base = this.current.get();
+			PersistentTrieNode next = base.plus(word);
+			if (next == base || this.current.compareAndSet(base, next)) {
+				return next;
+			}
+		}
+	}
+
+	public PersistentTrieNode attachAll(Collection<String> words) {
+		while (true) {
+			PersistentTrieNode base = this.current.get();
+			PersistentTrieNode next = base.plusAll(words);
+			if (next == base || this.current.compareAndSet(base, next)) {
+				return next;
+			}
+		}
+	}
+
+	// Publishes root if the current version is still expected, as after building from it.
+	public boolean publish(PersistentTrieNode expected, PersistentTrieNode root) {
+		if (!root.isRoot()) {
+			throw new IllegalArgumentException("Only a root can be published");
+		}
+		return this.current.compareAndSet(expected, root);
+	}
+
+	// Replaces the current version with one built from scratch, as for a nightly rebuild.
+	public PersistentTrieNode reload(File dictionary) throws Exception {
+		PersistentTrieNode root = PersistentTrieNode.load(dictionary);
+		this.current.set(root);
+		return root;
+	}
+
+	public String toString() {
+		return "VersionedTrie[version=" + current().getVersion() + "]";
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Best first search for the completions below a trie node, in order of decreasing heuristic as
+ * MTrieNode.findByHeuristic returns them. A trie subclasses it to say how its nodes, named by
+ * int, are expanded and spelled; Nodes does the same for tries made of node objects. The search
+ * keeps every node it reaches with the entry it was reached from, so nodes need no parent links
+ * and nodes shared between paths are spelled correctly. One instance serves one search at a time.
+ */
+public abstract class CompletionSearch {
+	private int[] nodes = new int[16];
+	private int[] parents = new int[16];
+	private int[] lengths = new int[16]; // characters spelled from the start node to the entry's
+	private int size = 0;
+	private int expanding = -1;
+	private final NodeHeap heap = new NodeHeap();
+
+	protected abstract boolean isLeaf(int node);
+
+	// Calls add for each child of an inner node that is worth searching.
+	protected abstract void expand(int node);
+
+	// Writes the label of the edge into node so that it ends just before buf[end].
+	protected abstract void spell(int node, char[] buf, int end);
+
+	protected int getLength(int node) {
+		return 1;
+	}
+
+	// Whether a leaf is reported, for tries that keep leaves which no longer hold a word.
+	protected boolean isCompletion(int node) {
+		return true;
+	}
+
+	// Queues a child of the node being expanded.
+	protected final void add(int child, int heuristic) {
+		if (this.size == this.nodes.length) {
+			this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+			this.parents = Arrays.copyOf(this.parents, this.size * 2);
+			this.lengths = Arrays.copyOf(this.lengths, this.size * 2);
+		}
+		this.nodes[this.size] = child;
+		this.parents[this.size] = this.expanding;
+		this.lengths[this.size] = this.lengths[this.expanding] + getLength(child);
+		this.heap.push(heuristic, this.size++);
+	}
+
+	// Characters spelled from the start node to the node being expanded.
+	protected final int getSpelledLength() {
+		return this.lengths[this.expanding];
+	}
+
+	public List<String> complete(int found, String prefix) {
+		return complete(found, prefix, 0);
+	}
+
+	// Completions of prefix below found, the node prefix leads to; the leaves below it are spelled
+	// after prefix. found itself is never a completion. 0 maxResults returns them all.
+	public List<String> complete(int found, String prefix, int maxResults) {
+		List<String> results = new ArrayList<String>();
+		if (isLeaf(found)) {
+			return results;
+		}
+		this.heap.clear();
+		this.nodes[0] = found;
+		this.parents[0] = -1;
+		this.lengths[0] = 0;
+		this.size = 1;
+		this.heap.push(0, 0);
+		while (!this.heap.isEmpty()) {
+			int entry = this.heap.pop();
+			int node = this.nodes[entry];
+			if (!isLeaf(node)) {
+				this.expanding = entry;
+				expand(node);
+				continue;
+			}
+			if (isCompletion(node)) {
+				char[] buf = new char[this.lengths[entry]];
+				for (int e = entry; this.parents[e] != -1; e = this.parents[e]) {
+					spell(this.nodes[e], buf, this.lengths[e]);
+				}
+				results.add(prefix + new String(buf));
+				if (maxResults > 0 && results.size() == maxResults) {
+					break;
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * CompletionSearch over node objects, which it names by their place in a list of the nodes
+	 * reached so far.
+	 */
+	public abstract static class Nodes<N> extends CompletionSearch {
+		private final List<N> reached = new ArrayList<N>();
+		private final List<N> children = new ArrayList<N>();
+
+		protected abstract boolean isLeaf(N node);
+
+		protected abstract int getHeuristic(N node);
+
+		// Adds the children of an inner node that are worth searching.
+		protected abstract void addChildren(N node, List<N> children);
+
+		protected abstract void spell(N node, char[] buf, int end);
+
+		protected int getLength(N node) {
+			return 1;
+		}
+
+		protected boolean isCompletion(N node) {
+			return true;
+		}
+
+		public List<String> complete(N found, String prefix) {
+			return complete(found, prefix, 0);
+		}
+
+		public List<String> complete(N found, String prefix, int maxResults) {
+			this.reached.clear();
+			this.reached.add(found);
+			return complete(0, prefix, maxResults);
+		}
+
+		protected final boolean isLeaf(int node) {
+			return isLeaf(this.reached.get(node));
+		}
+
+		protected final void expand(int node) {
+			this.children.clear();
+			addChildren(this.reached.get(node), this.children);
+			for (N child : this.children) {
+				this.reached.add(child);
+				add(this.reached.size() - 1, getHeuristic(child));
+			}
+		}
+
+		protected final void spell(int node, char[] buf, int end) {
+			spell(this.reached.get(node), buf, end);
+		}
+
+		protected final int getLength(int node) {
+			return getLength(this.reached.get(node));
+		}
+
+		protected final boolean isCompletion(int node) {
+			return isCompletion(this.reached.get(node));
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.util;
+
+import java.util.Arrays;
+
+/**
+ * Max heap of int node ids keyed by heuristic, packed into longs so that nothing is boxed.
+ * Used to hand out completions in order of decreasing heuristic. Equal heuristics pop the
+ * larger node id first.
+ */
+public class NodeHeap {
+	private long[] keys = new long[16];
+	private int size = 0;
+
+	public void push(int heuristic, int node) {
+		if (this.size == this.keys.length) {
+			this.keys = Arrays.copyOf(this.keys, this.size * 2);
+		}
+		long key = ((long) heuristic << 32) | (node & 0xffffffffL);
+		int i = this.size++;
+		while (i > 0 && this.keys[(i - 1) >> 1] < key) {
+			this.keys[i] = this.keys[(i - 1) >> 1];
+			i = (i - 1) >> 1;
+		}
+		this.keys[i] = key;
+	}
+
+	// Removes and returns the node with the largest heuristic.
+	public int pop() {
+		int node = (int) this.keys[0];
+		long key = this.keys[--this.size];
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= this.size) {
+				break;
+			}
+			if (child + 1 < this.size && this.keys[child + 1] > this.keys[child]) {
+				child++;
+			}
+			if (this.keys[child] <= key) {
+				break;
+			}
+			this.keys[i] = this.keys[child];
+			i = child;
+		}
+		this.keys[i] = key;
+		return node;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public void clear() {
+		this.size = 0;
+	}
+}
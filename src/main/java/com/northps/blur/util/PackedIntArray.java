@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.util;
+
+/**
+ * Fixed size array of non-negative ints packed into as few bits each as the largest value
+ * needs. Storing a value that does not fit widens every entry.
+ */
+public class PackedIntArray {
+	private final int size;
+	private int bits;
+	private long[] words;
+
+	public PackedIntArray(int size, int maxValue) {
+		this.size = size;
+		this.bits = bitsFor(maxValue);
+		this.words = new long[wordsFor(size, this.bits)];
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public int getBitsPerValue() {
+		return this.bits;
+	}
+
+	public int get(int i) {
+		long pos = (long) i * this.bits;
+		int w = (int) (pos >>> 6);
+		int shift = (int) (pos & 63);
+		long value = this.words[w] >>> shift;
+		if (shift + this.bits > 64) {
+			value |= this.words[w + 1] << (64 - shift);
+		}
+		return (int) (value & ((1L << this.bits) - 1));
+	}
+
+	public void set(int i, int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Packed values must not be negative: " + value);
+		}
+		if (bitsFor(value) > this.bits) {
+			widen(bitsFor(value));
+		}
+		long pos = (long) i * this.bits;
+		int w = (int) (pos >>> 6);
+		int shift = (int) (pos & 63);
+		long mask = (1L << this.bits) - 1;
+		this.words[w] = (this.words[w] & ~(mask << shift)) | ((long) value << shift);
+		if (shift + this.bits > 64) {
+			int spill = 64 - shift;
+			this.words[w + 1] = (this.words[w + 1] & ~(mask >>> spill)) | ((long) value >>> spill);
+		}
+	}
+
+	private void widen(int bits) {
+		PackedIntArray wider = new PackedIntArray(this.size, (1 << (bits - 1)));
+		for (int i = 0; i < this.size; i++) {
+			wider.set(i, get(i));
+		}
+		this.bits = wider.bits;
+		this.words = wider.words;
+	}
+
+	private static int bitsFor(int value) {
+		return Math.max(1, 32 - Integer.numberOfLeadingZeros(value));
+	}
+
+	private static int wordsFor(int size, int bits) {
+		return (int) (((long) size * bits + 63) >>> 6) + 1;
+	}
+
+	public long getMemoryUsage() {
+		return 8L * this.words.length;
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur.util;
+
+/**
+ * Immutable bit vector with rank and select. Ones are counted once per 512 bit block, which
+ * adds an int per block (about 6%) and leaves at most eight popcounts per rank; select
+ * binary searches the blocks and then scans words.
+ */
+public class RankSelectBitVector {
+	private static final int WORDS_PER_BLOCK = 8;
+
+	private final long[] words;
+	private final int length;
+	private final int[] blockRanks; // ones before each block
+
+	// Bit i is bit (i & 63) of words[i >>> 6]; bits at and past length must be clear.
+	public RankSelectBitVector(long[] words, int length) {
+		this.words = words;
+		this.length = length;
+		int blocks = (words.length + WORDS_PER_BLOCK - 1) / WORDS_PER_BLOCK;
+		this.blockRanks = new int[blocks + 1];
+		int ones = 0;
+		for (int w = 0; w < words.length; w++) {
+			if (w % WORDS_PER_BLOCK == 0) {
+				this.blockRanks[w / WORDS_PER_BLOCK] = ones;
+			}
+			ones += Long.bitCount(words[w]);
+		}
+		this.blockRanks[blocks] = ones;
+	}
+
+	public int length() {
+		return this.length;
+	}
+
+	public boolean get(int pos) {
+		return (this.words[pos >>> 6] & (1L << pos)) != 0;
+	}
+
+	// Ones in [0, pos).
+	public int rank1(int pos) {
+		int w = pos >>> 6;
+		int block = w / WORDS_PER_BLOCK;
+		int rank = this.blockRanks[block];
+		for (int i = block * WORDS_PER_BLOCK; i < w; i++) {
+			rank += Long.bitCount(this.words[i]);
+		}
+		if ((pos & 63) != 0) {
+			rank += Long.bitCount(this.words[w] & ((1L << pos) - 1));
+		}
+		return rank;
+	}
+
+	// Zeros in [0, pos).
+	public int rank0(int pos) {
+		return pos - rank1(pos);
+	}
+
+	// Position of the k-th one, counting from 1.
+	public int select1(int k) {
+		int low = 0;
+		int high = this.blockRanks.length - 2;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.blockRanks[mid] < k) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		int rank = this.blockRanks[low];
+		for (int w = low * WORDS_PER_BLOCK; w < this.words.length; w++) {
+			int ones = Long.bitCount(this.words[w]);
+			if (rank + ones >= k) {
+				return (w << 6) + selectInWord(this.words[w], k - rank);
+			}
+			rank += ones;
+		}
+		return this.length;
+	}
+
+	// Position of the k-th zero, counting from 1.
+	public int select0(int k) {
+		int low = 0;
+		int high = this.blockRanks.length - 2;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (mid * WORDS_PER_BLOCK * 64 - this.blockRanks[mid] < k) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		int rank = low * WORDS_PER_BLOCK * 64 - this.blockRanks[low];
+		for (int w = low * WORDS_PER_BLOCK; w < this.words.length; w++) {
+			int zeros = 64 - Long.bitCount(this.words[w]);
+			if (rank + zeros >= k) {
+				return (w << 6) + selectInWord(~this.words[w], k - rank);
+			}
+			rank += zeros;
+		}
+		return this.length;
+	}
+
+	// First zero at or after pos.
+	public int nextZero(int pos) {
+		int w = pos >>> 6;
+		long bits = ~this.words[w] & (-1L << pos);
+		while (bits == 0) {
+			bits = ~this.words[++w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(bits);
+	}
+
+	private static int selectInWord(long bits, int k) {
+		for (int i = 1; i < k; i++) {
+			bits &= bits - 1;
+		}
+		return Long.numberOfTrailingZeros(bits);
+	}
+
+	public long getMemoryUsage() {
+		return 8L * this.words.length + 4L * this.blockRanks.length;
+	}
+}
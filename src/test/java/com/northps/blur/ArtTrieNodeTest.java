@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.ArtTrieNode;
+import com.northps.blur.impl.FindByLongest;
+
+public class ArtTrieNodeTest {
+
+	@Test
+	public void testLayoutsGrow() {
+		ArtTrieNode root = new ArtTrieNode();
+		int[] sizes = {1, 4, 5, 16, 17, 48, 49, 200};
+		int[] layouts = {ArtTrieNode.NODE4, ArtTrieNode.NODE4, ArtTrieNode.NODE16, ArtTrieNode.NODE16,
+				ArtTrieNode.NODE48, ArtTrieNode.NODE48, ArtTrieNode.NODE256, ArtTrieNode.NODE256};
+		int added = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			for (; added < sizes[i]; added++) {
+				root.attach("x" + (char) (200 - added) + "y");
+			}
+			assertEquals("children: " + added, layouts[i], root.getChild('x').getLayout());
+		}
+		ArtTrieNode x = root.getChild('x');
+		assertEquals(200, x.getChildren().size());
+		for (int i = 0; i < 200; i++) {
+			assertSame(x.getChildren().get((char) (200 - i)), x.getChild((char) (200 - i)));
+		}
+
+		// a character the wide layouts cannot index
+		root.attach("x\u4e2dy");
+		assertEquals(ArtTrieNode.NODE_MAP, x.getLayout());
+		assertEquals(201, x.getChildren().size());
+		assertEquals("x\u4e2dy", root.findByHeuristic("x\u4e2d").get(0));
+	}
+
+	@Test
+	public void testMatchesMTrieNode() throws Exception {
+		ArtTrieNode art = new ArtTrieNode();
+		art.loadDictionary(TrieTestSupport.dictionary());
+		assertEquals(ArtTrieNode.NODE48, art.getLayout());
+		TrieTestSupport.assertSameResults(TrieTestSupport.loadMTrieNode(), art, new FindByLongest());
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import java.util.Arrays;
+
+/**
+ * Harness for the *Benchmark classes, which the build does not run. Run one by hand with
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes com.northps.blur.BurstTrieBenchmark
+ * Every task is warmed up before anything is timed, rounds rotate the order of the tasks so
+ * none is always first, and the median round of each task is reported.
+ */
+public final class Benchmark {
+	public static final int WARMUP_ROUNDS = 10;
+	public static final int ROUNDS = 21;
+
+	// Results are folded in here so the JIT cannot drop the work being timed.
+	public static volatile long sink;
+
+	private Benchmark() {
+	}
+
+	// Prints and returns the median time in microseconds of each task.
+	public static long[] run(String title, String[] names, Runnable[] tasks) {
+		for (int round = 0; round < WARMUP_ROUNDS; round++) {
+			for (Runnable task : tasks) {
+				task.run();
+			}
+		}
+		long[][] times = new long[tasks.length][ROUNDS];
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int k = 0; k < tasks.length; k++) {
+				int t = (k + round) % tasks.length;
+				long start = System.nanoTime();
+				tasks[t].run();
+				times[t][round] = System.nanoTime() - start;
+			}
+		}
+		long[] medians = new long[tasks.length];
+		System.out.println(">>> " + title + ", median of " + ROUNDS + " rounds after " + WARMUP_ROUNDS + " warm-up rounds:");
+		for (int t = 0; t < tasks.length; t++) {
+			Arrays.sort(times[t]);
+			medians[t] = times[t][ROUNDS / 2] / 1000;
+			System.out.println(">>>   " + names[t] + ": " + medians[t] + "us (min " + times[t][0] / 1000
+					+ "us, max " + times[t][ROUNDS - 1] / 1000 + "us)");
+		}
+		return medians;
+	}
+}
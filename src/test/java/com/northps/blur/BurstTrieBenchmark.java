@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import java.io.File;
+import java.util.List;
+
+import com.northps.blur.impl.BurstTrieNode;
+import com.northps.blur.impl.MTrieNode;
+
+/**
+ * BurstTrieNode against MTrieNode over dict.txt: loading, and top 10 completion of a few prefixes.
+ */
+public class BurstTrieBenchmark {
+	private static final String[] PREFIXES = {"a", "b", "c", "re", "spel", "qu", "th", "un", "pre", "co", "st", "zz"};
+
+	public static void main(String[] args) throws Exception {
+		final File dictionary = TrieTestSupport.dictionary();
+		Benchmark.run("load dict.txt", new String[] {"mtrie", "burst"}, new Runnable[] {
+			new Runnable() {
+				public void run() {
+					MTrieNode root = new MTrieNode();
+					load(root, dictionary);
+					Benchmark.sink += root.getChildren().size();
+				}
+			},
+			new Runnable() {
+				public void run() {
+					BurstTrieNode root = new BurstTrieNode();
+					load(root, dictionary);
+					Benchmark.sink += root.count()[1];
+				}
+			}
+		});
+
+		final MTrieNode mtrie = new MTrieNode();
+		mtrie.loadDictionary(dictionary);
+		final BurstTrieNode burst = new BurstTrieNode();
+		burst.loadDictionary(dictionary);
+		Benchmark.run("100 x " + PREFIXES.length + " top 10 completions", new String[] {"mtrie", "burst"}, new Runnable[] {
+			new Runnable() {
+				public void run() {
+					complete(mtrie);
+				}
+			},
+			new Runnable() {
+				public void run() {
+					complete(burst);
+				}
+			}
+		});
+	}
+
+	private static void load(TrieNode root, File dictionary) {
+		try {
+			root.loadDictionary(dictionary);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void complete(TrieNode root) {
+		for (int i = 0; i < 100; i++) {
+			for (String prefix : PREFIXES) {
+				List<String> results = root.findByHeuristic(prefix, 10);
+				Benchmark.sink += results.size();
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.BurstTrieNode;
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.MTrieNode;
+
+public class BurstTrieNodeTest {
+
+	@Test
+	public void testBurst() {
+		BurstTrieNode root = new BurstTrieNode();
+		root.attach("car");
+		root.attach("cart");
+		root.attach("cat");
+		assertEquals(1, root.count()[0]);
+		assertEquals(Arrays.asList("cart", "cat"), root.findByHeuristic("c"));
+		assertEquals(Arrays.asList("cart"), root.findByHeuristic("car"));
+		assertEquals(0, root.findByHeuristic("cart").size());
+
+		MTrieNode expected = new MTrieNode();
+		expected.attach("car");
+		expected.attach("cart");
+		expected.attach("cat");
+		for (int i = 0; i <= BurstTrieNode.BURST_THRESHOLD; i++) {
+			root.attach("c" + (char) ('a' + i % 26) + i);
+			expected.attach("c" + (char) ('a' + i % 26) + i);
+		}
+		assertTrue(root.count()[0] > 1);
+		assertEquals(Arrays.asList("cart"), root.findByHeuristic("car"));
+		assertTrue(root.findByHeuristic("ca").contains("cat"));
+		assertEquals(new HashSet<String>(expected.findByHeuristic("c")), new HashSet<String>(root.findByHeuristic("c")));
+	}
+
+	@Test
+	public void testMatchesMTrieNode() throws Exception {
+		File dictionary = TrieTestSupport.dictionary();
+		String[] prefixes = {"a", "b", "c", "re", "spel", "qu", "th", "un", "pre", "co", "st", "zz"};
+
+		MTrieNode root = new MTrieNode();
+		root.loadDictionary(dictionary);
+		BurstTrieNode burst = new BurstTrieNode();
+		burst.loadDictionary(dictionary);
+		System.out.println(">>> nodes/containers: " + Arrays.toString(burst.count()));
+
+		for (String prefix : prefixes) {
+			assertEquals(prefix, new HashSet<String>(root.findByHeuristic(prefix)),
+					new HashSet<String>(burst.findByHeuristic(prefix)));
+		}
+
+		FindByLongest heuristic = new FindByLongest();
+		assertEquals(new HashSet<String>(heuristic.fuzzySearch(root, "speling", 100000)),
+				new HashSet<String>(heuristic.fuzzySearch(burst, "speling", 100000)));
+	}
+
+	@Test
+	public void testViews() throws Exception {
+		BurstTrieNode burst = new BurstTrieNode();
+		burst.loadDictionary(TrieTestSupport.dictionary());
+
+		List<Integer> ids = new ArrayList<Integer>();
+		collectIds(burst, ids);
+		assertEquals(ids.size(), new HashSet<Integer>(ids).size());
+		List<Integer> again = new ArrayList<Integer>();
+		collectIds(burst, again);
+		assertEquals(ids, again);
+
+		TrieNode view = burst.getChildren().get('s').getChildren().get('p').getChildren().get('e');
+		assertEquals(burst.findByHeuristic("spe", 10), view.findByHeuristic("spe", 10));
+	}
+
+	private static void collectIds(TrieNode node, List<Integer> ids) {
+		ids.add(node.getId());
+		for (TrieNode child : node.getChildren().values()) {
+			collectIds(child, ids);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.CompactingTrie;
+import com.northps.blur.impl.DoubleArrayTrie;
+
+public class CompactingTrieTest {
+	private static final String[] PREFIXES = {"a", "re", "spel", "qu", "zz", "con", "th"};
+
+	// The distinct words a DoubleArrayTrie keeps, sorted.
+	private List<String> readWords() throws Exception {
+		Set<String> words = new HashSet<String>();
+		for (String word : TrieTestSupport.words()) {
+			if (word.length() > 1) {
+				words.add(word);
+			}
+		}
+		List<String> sorted = new ArrayList<String>(words);
+		Collections.sort(sorted);
+		return sorted;
+	}
+
+	@Test
+	public void testRemoveAndUpdate() {
+		// only compacted by hand
+		CompactingTrie trie = new CompactingTrie(DoubleArrayTrie.build(Arrays.asList("hop", "hops", "hat", "happy")),
+				1.0, Executors.newSingleThreadExecutor());
+		assertEquals(Arrays.asList("happy", "hops", "hat"), trie.findByHeuristic("h"));
+
+		// a word that was only a prefix becomes a completion once its longer word is gone
+		assertTrue(trie.remove("hops"));
+		assertFalse(trie.remove("hops"));
+		assertFalse(trie.contains("hops"));
+		assertEquals("happy", trie.findByHeuristic("h").get(0));
+		assertEquals(new HashSet<String>(Arrays.asList("happy", "hop", "hat")), new HashSet<String>(trie.findByHeuristic("h")));
+
+		// the branch is pruned
+		assertTrue(trie.remove("hop"));
+		assertEquals(Collections.<String>emptyList(), trie.findByHeuristic("ho"));
+		assertEquals(5, trie.getTrie().getHeuristic(trie.getTrie().walk(DoubleArrayTrie.ROOT, "h")));
+
+		assertTrue(trie.update("hat", 10));
+		assertFalse(trie.update("hop", 10));
+		assertFalse(trie.update("ha", 10));
+		assertEquals(Arrays.asList("hat", "happy"), trie.findByHeuristic("h"));
+		assertEquals(2, trie.getWordCount());
+		assertEquals(2, trie.getTombstoneCount());
+
+		// compaction drops the tombstones and keeps the weights
+		DoubleArrayTrie before = trie.getTrie();
+		assertTrue(trie.compact());
+		assertNotSame(before, trie.getTrie());
+		assertEquals(0, trie.getTombstoneCount());
+		assertEquals(Arrays.asList("hat", "happy"), trie.findByHeuristic("h"));
+		assertTrue(trie.getTrie().size() < before.size());
+	}
+
+	@Test
+	public void testSameAsRebuilt() throws Exception {
+		List<String> words = readWords();
+		CompactingTrie trie = new CompactingTrie(DoubleArrayTrie.build(words), 1.0, Executors.newSingleThreadExecutor());
+		List<String> live = new ArrayList<String>();
+		Random random = new Random(7);
+		for (String word : words) {
+			if (random.nextInt(3) == 0) {
+				assertTrue(word, trie.remove(word));
+			} else {
+				live.add(word);
+			}
+		}
+		assertEquals(live.size(), trie.getWordCount());
+		DoubleArrayTrie expected = DoubleArrayTrie.build(live);
+		for (String prefix : PREFIXES) {
+			assertEquals(prefix, new HashSet<String>(expected.findByHeuristic(prefix)),
+					new HashSet<String>(trie.findByHeuristic(prefix)));
+		}
+		trie.compact();
+		assertEquals(expected.size(), trie.getTrie().size());
+		for (String prefix : PREFIXES) {
+			assertEquals(prefix, new HashSet<String>(expected.findByHeuristic(prefix)),
+					new HashSet<String>(trie.findByHeuristic(prefix)));
+		}
+	}
+
+	@Test
+	public void testBackgroundCompaction() throws Exception {
+		List<String> words = readWords();
+		final Set<String> dictionary = new HashSet<String>(words);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		final CompactingTrie trie = new CompactingTrie(DoubleArrayTrie.build(words), 0.05, executor);
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicInteger searches = new AtomicInteger();
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		Thread reader = new Thread() {
+			public void run() {
+				while (running.get()) {
+					for (String prefix : PREFIXES) {
+						for (String result : trie.findByHeuristic(prefix, 10)) {
+							if (!dictionary.contains(result)) {
+								failure.set(result);
+							}
+						}
+						searches.incrementAndGet();
+					}
+				}
+			}
+		};
+		reader.start();
+
+		// removing a third of the words triggers several compactions along the way
+		DoubleArrayTrie first = trie.getTrie();
+		Set<String> live = new HashSet<String>(words);
+		Random random = new Random(11);
+		long start = System.currentTimeMillis();
+		for (String word : words) {
+			if (random.nextInt(3) == 0) {
+				assertTrue(word, trie.remove(word));
+				live.remove(word);
+			}
+		}
+		long elapsed = System.currentTimeMillis() - start;
+		while (trie.isCompacting()) {
+			Thread.sleep(10);
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+		running.set(false);
+		reader.join();
+		System.out.println(">>> " + (words.size() - live.size()) + " removals with background compaction in "
+				+ elapsed + "ms alongside " + searches.get() + " searches, now " + trie);
+
+		assertEquals(null, failure.get());
+		assertFalse(trie.isCompacting());
+		assertNotSame(first, trie.getTrie());
+		assertEquals(live.size(), trie.getWordCount());
+		for (String word : words) {
+			assertEquals(word, live.contains(word), trie.contains(word));
+		}
+		DoubleArrayTrie expected = DoubleArrayTrie.build(live);
+		for (String prefix : PREFIXES) {
+			assertEquals(prefix, new HashSet<String>(expected.findByHeuristic(prefix)),
+					new HashSet<String>(trie.findByHeuristic(prefix)));
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.northps.blur.impl.FindByAutomaton;
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.MTrieNode;
+
+/**
+ * Searches of a frozen MTrieNode from one thread against the same searches split over a pool,
+ * which should scale with the cores since no search writes to the trie.
+ */
+public class ConcurrentSearchBenchmark {
+	private static final String[] QUERIES = {"speling", "recieve", "teh", "definately", "occurence", "wierd", "spel", "quer"};
+	private static final Heuristic[] HEURISTICS = {new FindByLongest(), new FindByAutomaton()};
+
+	public static void main(String[] args) throws Exception {
+		final MTrieNode root = new MTrieNode();
+		root.loadDictionary(TrieTestSupport.dictionary());
+		root.freeze();
+
+		int cores = Runtime.getRuntime().availableProcessors();
+		final int threads = Math.max(4, cores);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			long[] medians = Benchmark.run(threads + " rounds of " + HEURISTICS.length * QUERIES.length + " fuzzy searches",
+					new String[] {"1 thread", threads + " threads"}, new Runnable[] {
+				new Runnable() {
+					public void run() {
+						for (int t = 0; t < threads; t++) {
+							search(root);
+						}
+					}
+				},
+				new Runnable() {
+					public void run() {
+						List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+						for (int t = 0; t < threads; t++) {
+							tasks.add(new Callable<Void>() {
+								public Void call() {
+									search(root);
+									return null;
+								}
+							});
+						}
+						try {
+							for (Future<Void> future : executor.invokeAll(tasks)) {
+								future.get();
+							}
+						} catch (Exception e) {
+							throw new IllegalStateException(e);
+						}
+					}
+				}
+			});
+			System.out.println(">>> " + cores + " cores, speedup " + (medians[0] * 10 / Math.max(1, medians[1])) / 10.0);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static void search(TrieNode root) {
+		try {
+			for (Heuristic heuristic : HEURISTICS) {
+				for (String query : QUERIES) {
+					Benchmark.sink += heuristic.fuzzySearch(root, query, 10).size();
+				}
+			}
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
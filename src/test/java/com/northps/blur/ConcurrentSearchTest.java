@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.FindByAutomaton;
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.FindByShortest;
+import com.northps.blur.impl.MTrieNode;
+
+public class ConcurrentSearchTest {
+	private static final String[] QUERIES = {"speling", "recieve", "teh", "definately", "occurence", "wierd", "spel", "quer"};
+
+	@Test
+	public void testFrozenTrieIsReadOnly() throws Exception {
+		MTrieNode root = new MTrieNode();
+		root.attach("happy");
+		root.attach("hop");
+		root.freeze();
+		assertTrue(root.isFrozen());
+		assertEquals(5, root.getChildren().get('h').getHeuristic());
+		try {
+			root.attach("hat");
+			fail("attach on a frozen trie");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			root.getChildren().get('h').setHeuristic(1);
+			fail("setHeuristic on a frozen trie");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		// searching must not try to reset the heuristics
+		assertEquals(1, new FindByLongest().fuzzySearch(root, "happi", 10).size());
+
+		MTrieNode shortest = new MTrieNode();
+		shortest.attach("happy");
+		shortest.attach("hop");
+		shortest.freeze(new FindByShortest());
+		assertEquals(2, shortest.findByHeuristic("h").size());
+		// the frozen values are shortest first, which FindByLongest can neither use nor reset
+		try {
+			new FindByLongest().fuzzySearch(shortest, "happi", 10);
+			fail("FindByLongest on a trie frozen with FindByShortest");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testConcurrentSearch() throws Exception {
+		final MTrieNode root = TrieTestSupport.loadMTrieNode();
+		root.freeze();
+
+		final Heuristic[] heuristics = {new FindByLongest(), new FindByAutomaton()};
+		final List<List<String>> expected = new ArrayList<List<String>>();
+		for (Heuristic heuristic : heuristics) {
+			for (String query : QUERIES) {
+				expected.add(heuristic.fuzzySearch(root, query, 10));
+			}
+			expected.add(root.findByHeuristic("re", 10));
+		}
+
+		// every thread must see exactly the single threaded results; ConcurrentSearchBenchmark times it
+		run(root, heuristics, expected, Math.max(4, Runtime.getRuntime().availableProcessors()), 2);
+	}
+
+	// Runs rounds of every search on each of threads threads, checking every result.
+	private void run(final MTrieNode root, final Heuristic[] heuristics, final List<List<String>> expected,
+			int threads, final int rounds) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for (int t = 0; t < threads; t++) {
+				tasks.add(new Callable<Void>() {
+					public Void call() throws Exception {
+						for (int round = 0; round < rounds; round++) {
+							int i = 0;
+							for (Heuristic heuristic : heuristics) {
+								for (String query : QUERIES) {
+									assertEquals(query, expected.get(i++), heuristic.fuzzySearch(root, query, 10));
+								}
+								assertEquals(expected.get(i++), root.findByHeuristic("re", 10));
+							}
+						}
+						return null;
+					}
+				});
+			}
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.ConcurrentTrieNode;
+import com.northps.blur.impl.FindByAutomaton;
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.MTrieNode;
+
+public class ConcurrentTrieNodeTest {
+	private static final String[] PREFIXES = {"a", "re", "spel", "qu", "zz"};
+
+	@Test
+	public void testSameAsMTrieNode() throws Exception {
+		File dictionary = TrieTestSupport.dictionary();
+		ConcurrentTrieNode root = new ConcurrentTrieNode();
+		root.loadDictionary(dictionary);
+		MTrieNode expected = new MTrieNode();
+		expected.loadDictionary(dictionary);
+		new FindByLongest().setTreeHeuristics(expected);
+
+		TrieTestSupport.assertSameTrie(expected, root);
+		for (String prefix : PREFIXES) {
+			assertEquals(prefix, new HashSet<String>(expected.findByHeuristic(prefix)),
+					new HashSet<String>(root.findByHeuristic(prefix)));
+		}
+		FindByAutomaton automaton = new FindByAutomaton();
+		assertEquals(new HashSet<String>(automaton.fuzzySearch(expected, "speling", 100000)),
+				new HashSet<String>(automaton.fuzzySearch(root, "speling", 100000)));
+	}
+
+	@Test
+	public void testConcurrentAttach() throws Exception {
+		final List<String> words = TrieTestSupport.words();
+		Collections.shuffle(words, new Random(42));
+		final Set<String> dictionary = new HashSet<String>(words);
+		final ConcurrentTrieNode root = new ConcurrentTrieNode();
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		final AtomicInteger searches = new AtomicInteger();
+		final AtomicReference<String> torn = new AtomicReference<String>();
+
+		int writers = 4;
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int w = 0; w < writers; w++) {
+			final List<String> share = words.subList(w * words.size() / writers, (w + 1) * words.size() / writers);
+			threads.add(new Thread() {
+				public void run() {
+					for (String word : share) {
+						root.attach(word);
+					}
+				}
+			});
+		}
+		List<Thread> readers = new ArrayList<Thread>();
+		for (int r = 0; r < 2; r++) {
+			readers.add(new Thread() {
+				public void run() {
+					while (writing.get()) {
+						for (String prefix : PREFIXES) {
+							// every result must be a whole word, never part of a branch being attached
+							for (String result : root.findByHeuristic(prefix, 10)) {
+								if (!dictionary.contains(result)) {
+									torn.set(result);
+								}
+							}
+							searches.incrementAndGet();
+						}
+					}
+				}
+			});
+		}
+		long start = System.currentTimeMillis();
+		for (Thread thread : readers) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long elapsed = System.currentTimeMillis() - start;
+		writing.set(false);
+		for (Thread thread : readers) {
+			thread.join();
+		}
+		System.out.println(">>> " + words.size() + " words attached by " + writers + " threads in " + elapsed
+				+ "ms alongside " + searches.get() + " searches");
+		assertEquals(null, torn.get());
+
+		MTrieNode expected = new MTrieNode();
+		for (String word : words) {
+			expected.attach(word);
+		}
+		new FindByLongest().setTreeHeuristics(expected);
+		TrieTestSupport.assertSameTrie(expected, root);
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.Dawg;
+import com.northps.blur.impl.DoubleArrayTrie;
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.FindByShortest;
+import com.northps.blur.impl.MTrieNode;
+
+public class DawgTest {
+
+	@Test
+	public void testSharesSuffixes() {
+		Dawg dawg = Dawg.build(Arrays.asList("walking", "talking", "walked", "talked"));
+		// w and t lead to one state, as do the -ing and -ed tails
+		assertEquals(dawg.walk(dawg.getRoot(), "w"), dawg.walk(dawg.getRoot(), "t"));
+		assertEquals(9, dawg.getStateCount());
+		assertTrue(dawg.contains("talked"));
+		assertFalse(dawg.contains("talk"));
+
+		assertEquals(Arrays.asList("talking", "talked"), dawg.complete("ta", 0, true));
+		assertEquals(Arrays.asList("talked"), dawg.complete("ta", 1, false));
+	}
+
+	@Test
+	public void testMatchesMTrieNode() throws Exception {
+		File dictionary = TrieTestSupport.dictionary();
+		MTrieNode root = TrieTestSupport.loadMTrieNode();
+		Dawg dawg = Dawg.load(dictionary);
+		int trieNodes = DoubleArrayTrie.load(dictionary).size();
+		System.out.println(">>> " + dawg + " trie nodes: " + trieNodes);
+		assertTrue(dawg.getStateCount() * 2 < trieNodes);
+
+		for (String word : TrieTestSupport.words()) {
+			if (word.length() > 1) {
+				assertTrue(word, dawg.contains(word));
+			}
+		}
+
+		TrieTestSupport.assertSameResults(root, dawg.getRootNode(), new FindByLongest());
+		for (String prefix : TrieTestSupport.PREFIXES) {
+			List<String> longest = dawg.findByHeuristic(prefix);
+			for (int i = 1; i < longest.size(); i++) {
+				assertTrue(longest.get(i - 1).length() >= longest.get(i).length());
+			}
+			List<String> shortest = dawg.complete(prefix, 10, false);
+			for (int i = 1; i < shortest.size(); i++) {
+				assertTrue(shortest.get(i - 1).length() <= shortest.get(i).length());
+			}
+		}
+
+		try {
+			new FindByShortest().setTreeHeuristics(dawg.getRootNode());
+			fail("A Dawg has no per path heuristics to set");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.DoubleArrayTrie;
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.MTrieNode;
+
+public class DoubleArrayTrieTest {
+
+	@Test
+	public void testCursor() {
+		DoubleArrayTrie trie = DoubleArrayTrie.build(Arrays.asList("car", "cart", "cat", "dog", "x"));
+		assertEquals(DoubleArrayTrie.NONE, trie.walk(DoubleArrayTrie.ROOT, "x"));
+		assertEquals(DoubleArrayTrie.NONE, trie.walk(DoubleArrayTrie.ROOT, "cab"));
+
+		DoubleArrayTrie.Cursor cursor = trie.cursor();
+		assertTrue(cursor.next('c'));
+		assertTrue(cursor.next('a'));
+		assertFalse(cursor.next('b'));
+		assertEquals(2, cursor.getDepth());
+		assertTrue(cursor.next('r'));
+		assertTrue(cursor.isWord());
+		assertFalse(cursor.isLeaf());
+		assertEquals(4, cursor.getHeuristic());
+		assertEquals("car", trie.getPrefix(cursor.getNode()));
+		assertTrue(cursor.back());
+		assertEquals(trie.walk(DoubleArrayTrie.ROOT, "ca"), cursor.getNode());
+
+		assertEquals(Arrays.asList("cart", "cat"), trie.findByHeuristic("ca"));
+	}
+
+	@Test
+	public void testMatchesMTrieNode() throws Exception {
+		MTrieNode root = TrieTestSupport.loadMTrieNode();
+		DoubleArrayTrie trie = DoubleArrayTrie.load(TrieTestSupport.dictionary());
+		System.out.println(">>> " + trie);
+
+		FindByLongest heuristic = new FindByLongest();
+		TrieTestSupport.assertSameResults(root, trie.getRootNode(), heuristic);
+		TrieTestSupport.assertSameCompletions(root, trie.getRootNode(), "wor");
+		TrieTestSupport.assertSameFuzzyResults(heuristic, root, trie.getRootNode(), "recieve", "happyness");
+		for (String prefix : TrieTestSupport.PREFIXES) {
+			List<String> results = trie.findByHeuristic(prefix, 0);
+			for (int i = 1; i < results.size(); i++) {
+				assertTrue(results.get(i - 1).length() >= results.get(i).length());
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.FindByAutomaton;
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.MTrieNode;
+
+public class FindByAutomatonTest {
+
+	@Test
+	public void testAutomatonDistance() throws Exception {
+		String[] words = {"hap", "happy", "ha", "hop", "chap", "ahp", "xyz", "", "h", "pah", "happiness"};
+		for (int n = 0; n <= LevenshteinAutomaton.MAX_DISTANCE; n++) {
+			LevenshteinAutomaton automaton = new LevenshteinAutomaton("hap", n);
+			for (String word : words) {
+				long state = automaton.getInitialState();
+				for (int i = 0; i < word.length(); i++) {
+					state = automaton.step(state, word.charAt(i));
+				}
+				int expected = Fuzzy.getLevenshteinDistance("hap", word);
+				if (expected <= n) {
+					assertEquals(word, expected, automaton.getDistance(state));
+				} else {
+					assertFalse(word, automaton.isAccepting(state));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTranspositionDistance() throws Exception {
+		String[] words = {"the", "teh", "hte", "eth", "thee", "tehe", "ht", "te"};
+		for (int n = 0; n <= 2; n++) {
+			LevenshteinAutomaton automaton = new LevenshteinAutomaton("the", n, true);
+			for (String word : words) {
+				long state = automaton.getInitialState();
+				for (int i = 0; i < word.length(); i++) {
+					state = automaton.step(state, word.charAt(i));
+				}
+				int expected = Fuzzy.getDamerauDistance("the", word);
+				if (expected <= n) {
+					assertEquals(word, expected, automaton.getDistance(state));
+				} else {
+					assertFalse(word, automaton.isAccepting(state));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSameResultsAsBlur() throws Exception {
+		MTrieNode root = TrieTestSupport.loadMTrieNode();
+
+		Heuristic blur = new FindByLongest();
+		Heuristic automaton = new FindByAutomaton();
+		String[] queries = {"hap", "wrold", "speling"};
+		for (String query : queries) {
+			long before = System.currentTimeMillis();
+			List<String> expected = blur.fuzzySearch(root, query, Integer.MAX_VALUE);
+			long middle = System.currentTimeMillis();
+			List<String> actual = automaton.fuzzySearch(root, query, Integer.MAX_VALUE);
+			long now = System.currentTimeMillis();
+			System.out.println(">>> " + query + " blur: " + (middle - before) + " automaton: " + (now - middle));
+
+			assertTrue(expected.size() > 0);
+			assertEquals(new HashSet<String>(expected), new HashSet<String>(actual));
+		}
+
+		// transpositions at distance 1
+		blur = new FindByLongest(1, true);
+		automaton = new FindByAutomaton(1, true);
+		String[] typos = {"teh", "recieve", "wrold"};
+		for (String query : typos) {
+			List<String> expected = blur.fuzzySearch(root, query, Integer.MAX_VALUE);
+			List<String> actual = automaton.fuzzySearch(root, query, Integer.MAX_VALUE);
+			assertTrue(expected.size() > 0);
+			assertEquals(new HashSet<String>(expected), new HashSet<String>(actual));
+		}
+		boolean corrected = false;
+		for (String result : automaton.fuzzySearch(root, "recieve", 20)) {
+			corrected |= result.startsWith("receiv");
+		}
+		assertTrue(corrected);
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.MTrieNode;
+
+public class FuzzyTest {
+
+	@Test
+	public void testBlurMatchesVariants() {
+		String word = "inkoo";
+		Set<String> expected = new HashSet<String>();
+		for (int i = 1; i <= 2; i++) {
+			for (String junk : Fuzzy.getAlphabetCombination(i)) {
+				for (Word variant : Fuzzy.getVariants(junk.toCharArray(), word)) {
+					expected.add(variant.getValue());
+				}
+			}
+		}
+
+		List<Word> blurred = Fuzzy.blur(2, word);
+		Set<String> actual = new HashSet<String>();
+		for (Word variant : blurred) {
+			actual.add(variant.getValue());
+			assertEquals(variant.getValue(), Fuzzy.getLevenshteinDistance(word, variant.getValue()), variant.getDistance());
+		}
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testVariantSink() {
+		final Set<String> streamed = new HashSet<String>();
+		Fuzzy.getVariants(new char[] {'a', 'b'}, "123", new VariantSink() {
+			public void accept(char[] buffer, int length, int distance) {
+				assertTrue(distance <= 2);
+				streamed.add(new String(buffer, 0, length));
+			}
+		});
+		for (Word variant : Fuzzy.getVariants(new char[] {'a', 'b'}, "123")) {
+			assertTrue(variant.getValue(), streamed.contains(variant.getValue()));
+		}
+	}
+
+	@Test
+	public void testSingleEditsGeneratedOnce() {
+		final Set<String> seen = new HashSet<String>();
+		final int[] emitted = {0};
+		Fuzzy.blur(1, "mississippi", new VariantSink() {
+			public void accept(char[] buffer, int length, int distance) {
+				emitted[0]++;
+				seen.add(new String(buffer, 0, length));
+			}
+		});
+		assertEquals(seen.size(), emitted[0]);
+	}
+
+	@Test
+	public void testDoubleEditsGeneratedOnceAtMinimalDistance() {
+		for (final String word : new String[] {"inkoo", "mississippi"}) {
+			for (final boolean transpositions : new boolean[] {false, true}) {
+				final Set<String> seen = new HashSet<String>();
+				Fuzzy.blur(2, word, transpositions, new VariantSink() {
+					public void accept(char[] buffer, int length, int distance) {
+						String variant = new String(buffer, 0, length);
+						assertTrue(variant, seen.add(variant));
+						int expected = transpositions ? Fuzzy.getDamerauDistance(word, variant)
+								: Fuzzy.getLevenshteinDistance(word, variant);
+						assertEquals(variant, expected, distance);
+					}
+				});
+				Iterator<Word> variants = Fuzzy.variants(2, word);
+				while (variants.hasNext()) {
+					String variant = variants.next().getValue();
+					assertTrue(variant, seen.contains(variant));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLazyVariants() {
+		Map<String, Integer> expected = new HashMap<String, Integer>();
+		for (Word variant : Fuzzy.blur(2, "hap")) {
+			expected.put(variant.getValue(), variant.getDistance());
+		}
+		Map<String, Integer> actual = new HashMap<String, Integer>();
+		int last = 0;
+		for (Iterator<Word> it = Fuzzy.variants(2, "hap"); it.hasNext();) {
+			Word variant = it.next();
+			assertTrue(variant.getDistance() >= last);
+			last = variant.getDistance();
+			actual.put(variant.getValue(), variant.getDistance());
+		}
+		assertEquals(expected, actual);
+
+		// distance 3 is only enumerated as far as it is pulled
+		Iterator<Word> it = Fuzzy.variants(3, "sku12345678");
+		for (int i = 0; i < 10000; i++) {
+			assertTrue(it.hasNext());
+			it.next();
+		}
+	}
+
+	@Test
+	public void testLazyVariantsAreUnique() {
+		// runs of repeated letters give many edit scripts that spell the same variant
+		Map<String, Integer> expected = new HashMap<String, Integer>();
+		for (Word variant : Fuzzy.blur(2, "mississippi")) {
+			expected.put(variant.getValue(), variant.getDistance());
+		}
+		Map<String, Integer> actual = new HashMap<String, Integer>();
+		for (Iterator<Word> it = Fuzzy.variants(2, "mississippi"); it.hasNext();) {
+			Word variant = it.next();
+			assertEquals(variant.getValue(), null, actual.put(variant.getValue(), variant.getDistance()));
+			assertEquals(variant.getValue(), Fuzzy.getLevenshteinDistance("mississippi", variant.getValue()), variant.getDistance());
+		}
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testMyersDistance() {
+		Random random = new Random(42);
+		int[] lengths = {0, 1, 5, 63, 64, 65, 130, 200};
+		for (int s : lengths) {
+			for (int t : lengths) {
+				String a = randomString(random, s);
+				String b = randomString(random, t);
+				assertEquals(Fuzzy.getLevenshteinDistance(a, b), new LevenshteinPattern(a).distance(b));
+				// similar strings exercise the negative deltas
+				String c = mutate(random, a);
+				assertEquals(Fuzzy.getLevenshteinDistance(a, c), Fuzzy.getMyersDistance(a, c));
+			}
+		}
+
+		String query = "accommodation";
+		List<Word> candidates = Fuzzy.blur(2, query);
+		LevenshteinPattern pattern = new LevenshteinPattern(query);
+		long before = System.currentTimeMillis();
+		for (Word candidate : candidates) {
+			assertEquals(Fuzzy.getLevenshteinDistance(query, candidate.getValue()), candidate.getDistance());
+		}
+		long middle = System.currentTimeMillis();
+		for (Word candidate : candidates) {
+			assertEquals(candidate.getDistance(), pattern.distance(candidate.getValue()));
+		}
+		long now = System.currentTimeMillis();
+		System.out.println(">>> " + candidates.size() + " candidates, classic: " + (middle - before) + " myers: " + (now - middle));
+	}
+
+	@Test
+	public void testBoundedDistance() {
+		Random random = new Random(7);
+		for (int round = 0; round < 2000; round++) {
+			String a = randomString(random, random.nextInt(12));
+			String b = random.nextBoolean() ? mutate(random, a) : randomString(random, random.nextInt(12));
+			int expected = Fuzzy.getLevenshteinDistance(a, b);
+			LevenshteinPattern pattern = new LevenshteinPattern(a);
+			for (int k = 0; k <= 4; k++) {
+				assertEquals(Math.min(expected, k + 1), Fuzzy.getBoundedDistance(a, b, k));
+				assertEquals(Math.min(expected, k + 1), pattern.distance(b, k));
+				assertEquals(expected <= k, Fuzzy.withinDistance(a, b, k));
+			}
+		}
+	}
+
+	@Test
+	public void testDamerauDistance() {
+		assertEquals(1, Fuzzy.getDamerauDistance("teh", "the"));
+		assertEquals(2, Fuzzy.getLevenshteinDistance("teh", "the"));
+		// optimal string alignment does not edit a swapped pair again
+		assertEquals(3, Fuzzy.getDamerauDistance("ca", "abc"));
+		assertTrue(Fuzzy.withinDamerauDistance("recieve", "receive", 1));
+
+		boolean swapped = false;
+		for (Word variant : Fuzzy.blur(1, "teh", true)) {
+			assertEquals(Fuzzy.getDamerauDistance("teh", variant.getValue()), variant.getDistance());
+			swapped |= variant.getValue().equals("the");
+		}
+		assertTrue(swapped);
+	}
+
+	@Test
+	public void testDictionaryAlphabet() throws Exception {
+		MTrieNode root = new MTrieNode();
+		root.attach("caf\u00e9s");
+		root.attach("na\u00efve");
+		root.attach("cab");
+
+		Alphabet alphabet = Alphabet.fromTrie(root);
+		assertTrue(alphabet.contains('\u00e9'));
+		assertTrue(!alphabet.contains('z'));
+		assertEquals(2, alphabet.getFrequency('a'));
+		assertEquals('a', alphabet.getSymbols()[0]);
+		assertTrue(Fuzzy.blur(2, "cafes", alphabet, false).size() < Fuzzy.blur(2, "cafes").size());
+
+		// the default alphabet has no accented letters, so cannot substitute them
+		assertTrue(!Fuzzy.blur(1, "cafes").contains(new Word("caf\u00e9s", 1)));
+		assertTrue(Fuzzy.blur(1, "cafes", alphabet, false).contains(new Word("caf\u00e9s", 1)));
+		assertEquals("caf\u00e9s", new FindByLongest(2, false, alphabet).fuzzySearch(root, "cafes", 10).get(0));
+	}
+
+	private static String randomString(Random random, int length) {
+		char[] alphabet = {'a', 'b', 'c', '\u00e9', '\u4e2d'};
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			buf.append(alphabet[random.nextInt(alphabet.length)]);
+		}
+		return buf.toString();
+	}
+
+	private static String mutate(Random random, String s) {
+		StringBuilder buf = new StringBuilder(s);
+		for (int i = 0; i < 3 && buf.length() > 0; i++) {
+			int p = random.nextInt(buf.length());
+			if (random.nextBoolean()) {
+				buf.deleteCharAt(p);
+			} else {
+				buf.insert(p, 'x');
+			}
+		}
+		return buf.toString();
+	}
+}
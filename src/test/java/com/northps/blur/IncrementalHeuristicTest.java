@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.ArtTrieNode;
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.FindByShortest;
+import com.northps.blur.impl.MTrieNode;
+import com.northps.blur.impl.PatriciaTrieNode;
+import com.northps.blur.impl.SymbolTrieNode;
+
+public class IncrementalHeuristicTest {
+
+	@Test
+	public void testAttachKeepsHeuristics() throws Exception {
+		List<String> words = TrieTestSupport.words();
+		IncrementalHeuristic[] heuristics = {new FindByLongest(), new FindByShortest()};
+		for (IncrementalHeuristic heuristic : heuristics) {
+			// half the words before the heuristics are set, and every other word after
+			MTrieNode root = new MTrieNode();
+			for (int i = 0; i < words.size(); i += 2) {
+				root.attach(words.get(i));
+			}
+			heuristic.setTreeHeuristics(root);
+			assertSame(heuristic, root.getMaintainedHeuristic());
+			long start = System.currentTimeMillis();
+			for (int i = 1; i < words.size(); i += 2) {
+				root.attach(words.get(i));
+			}
+			long elapsed = System.currentTimeMillis() - start;
+
+			MTrieNode expected = new MTrieNode();
+			for (int i = 0; i < words.size(); i += 2) {
+				expected.attach(words.get(i));
+			}
+			start = System.currentTimeMillis();
+			for (int i = 1; i < words.size(); i += 2) {
+				expected.attach(words.get(i));
+			}
+			long plain = System.currentTimeMillis() - start;
+			start = System.currentTimeMillis();
+			heuristic.setTreeHeuristics(expected);
+			System.out.println(">>> " + heuristic.getClass().getSimpleName() + ": " + words.size() / 2
+					+ " attaches in " + elapsed + "ms keeping heuristics, " + plain + "ms without; one full recomputation "
+					+ (System.currentTimeMillis() - start) + "ms");
+			TrieTestSupport.assertSameTrie(expected, root);
+		}
+
+		// a leaf that becomes an inner node takes its new child's value, even when that is smaller
+		MTrieNode root = new MTrieNode();
+		root.attach("hop");
+		new FindByShortest().setTreeHeuristics(root);
+		root.attach("hops");
+		TrieNode p = root.getChildren().get('h').getChildren().get('o').getChildren().get('p');
+		assertEquals(new FindByShortest().getLeafHeuristic(4), p.getHeuristic());
+		assertEquals(new FindByShortest().getLeafHeuristic(4), root.getChildren().get('h').getHeuristic());
+	}
+
+	@Test
+	public void testOtherTriesKeepHeuristics() throws Exception {
+		List<String> words = TrieTestSupport.words();
+		IncrementalHeuristic[] heuristics = {new FindByLongest(), new FindByShortest()};
+		for (IncrementalHeuristic heuristic : heuristics) {
+			MTrieNode expected = new MTrieNode();
+			for (String word : words) {
+				expected.attach(word);
+			}
+			heuristic.setTreeHeuristics(expected);
+
+			TrieNode[] tries = {new ArtTrieNode(), new SymbolTrieNode(), new PatriciaTrieNode()};
+			for (TrieNode trie : tries) {
+				for (int i = 0; i < words.size(); i += 2) {
+					trie.attach(words.get(i));
+				}
+				heuristic.setTreeHeuristics(trie);
+				assertSame(heuristic, ((MaintainedHeuristics) trie).getMaintainedHeuristic());
+				for (int i = 1; i < words.size(); i += 2) {
+					trie.attach(words.get(i));
+				}
+				TrieTestSupport.assertSameTrie(expected, trie);
+			}
+		}
+	}
+
+	@Test
+	public void testAttachAfterSearch() throws Exception {
+		TrieNode[] tries = {new MTrieNode(), new ArtTrieNode(), new SymbolTrieNode(), new PatriciaTrieNode()};
+		for (TrieNode trie : tries) {
+			trie.attach("cat");
+			trie.attach("dog");
+			assertEquals(Arrays.asList("cat"), trie.findByHeuristic("c"));
+			// the lazy default heuristics are kept up to date from then on
+			trie.attach("cow");
+			trie.attach("cats");
+			assertEquals(trie.getClass().getSimpleName(), new HashSet<String>(Arrays.asList("cats", "cow")),
+					new HashSet<String>(trie.findByHeuristic("c")));
+			assertEquals("cats", trie.findByHeuristic("c").get(0));
+		}
+	}
+
+	@Test
+	public void testSearchDoesNotRecompute() throws Exception {
+		MTrieNode root = new MTrieNode();
+		root.attach("happy");
+		root.attach("happen");
+		root.attach("hop");
+		assertEquals("happen", root.findByHeuristic("h").get(0));
+		// attached after the lazy default, and still found first
+		root.attach("happenstance");
+		assertEquals("happenstance", root.findByHeuristic("h").get(0));
+
+		// a heuristic set by hand survives searches until it is marked dirty
+		TrieNode o = root.getChildren().get('h').getChildren().get('o');
+		o.setHeuristic(100);
+		new FindByLongest().fuzzySearch(root, "hapy", 10);
+		assertEquals(100, o.getHeuristic());
+		assertEquals("hop", root.findByHeuristic("h").get(0));
+
+		assertTrue(root.markDirty("ho"));
+		assertFalse(root.markDirty("hx"));
+		root.refreshHeuristics();
+		assertEquals(3, o.getHeuristic());
+		assertEquals("happenstance", root.findByHeuristic("h").get(0));
+	}
+
+	@Test
+	public void testRefreshOnlyDirtySubtrees() throws Exception {
+		List<String> words = TrieTestSupport.words();
+		MTrieNode root = new MTrieNode();
+		for (String word : words) {
+			root.attach(word);
+		}
+		new FindByLongest().setTreeHeuristics(root);
+		MTrieNode expected = new MTrieNode();
+		for (String word : words) {
+			expected.attach(word);
+		}
+		new FindByLongest().setTreeHeuristics(expected);
+
+		// scramble the "spel" subtree and one node elsewhere, which is left alone
+		scramble(root.getChildren().get('s').getChildren().get('p').getChildren().get('e').getChildren().get('l'));
+		TrieNode z = root.getChildren().get('z');
+		z.setHeuristic(-1);
+		root.markDirty("spel");
+		root.refreshHeuristics();
+		assertEquals(-1, z.getHeuristic());
+		z.setHeuristic(expected.getChildren().get('z').getHeuristic());
+		TrieTestSupport.assertSameTrie(expected, root);
+
+		root.markDirty("");
+		scramble(root);
+		root.refreshHeuristics();
+		TrieTestSupport.assertSameTrie(expected, root);
+	}
+
+	private static void scramble(TrieNode node) {
+		if (!node.isRoot()) {
+			node.setHeuristic(7);
+		}
+		for (TrieNode child : node.getChildren().values()) {
+			scramble(child);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.DoubleArrayTrie;
+import com.northps.blur.impl.FindByAutomaton;
+import com.northps.blur.impl.FindByShortest;
+import com.northps.blur.impl.LoudsTrie;
+import com.northps.blur.util.RankSelectBitVector;
+
+public class LoudsTrieTest {
+
+	@Test
+	public void testRankSelect() {
+		Random random = new Random(7);
+		int length = 5000;
+		long[] words = new long[length / 64 + 1];
+		boolean[] bits = new boolean[length];
+		for (int i = 0; i < length; i++) {
+			bits[i] = random.nextInt(3) == 0;
+			if (bits[i]) {
+				words[i >>> 6] |= 1L << i;
+			}
+		}
+		RankSelectBitVector vector = new RankSelectBitVector(words, length);
+		int ones = 0;
+		for (int i = 0; i < length; i++) {
+			assertEquals(ones, vector.rank1(i));
+			if (bits[i]) {
+				ones++;
+				assertEquals(i, vector.select1(ones));
+			} else {
+				assertEquals(i, vector.select0(i + 1 - ones));
+			}
+		}
+	}
+
+	@Test
+	public void testNavigation() throws Exception {
+		LoudsTrie trie = LoudsTrie.build(Arrays.asList("car", "cart", "cat", "dog"));
+		int ca = trie.walk(LoudsTrie.ROOT, "ca");
+		assertEquals(2, trie.getChildCount(ca));
+		assertEquals("car", trie.getPrefix(trie.getChild(ca, 'r')));
+		assertEquals(ca, trie.getParent(trie.getChild(ca, 't')));
+		assertEquals(LoudsTrie.NONE, trie.getChild(ca, 'b'));
+		assertEquals(Arrays.asList("cart", "cat"), trie.findByHeuristic("c"));
+
+		// values wider than the packed heuristics were built with
+		new FindByShortest().setTreeHeuristics(trie.getRootNode());
+		assertEquals(Integer.MAX_VALUE / 3, trie.getHeuristic(trie.walk(LoudsTrie.ROOT, "cat")));
+		assertEquals(Arrays.asList("cat", "cart"), trie.findByHeuristic("c"));
+	}
+
+	@Test
+	public void testMatchesMTrieNode() throws Exception {
+		File dictionary = TrieTestSupport.dictionary();
+		LoudsTrie trie = LoudsTrie.load(dictionary);
+		System.out.println(">>> " + trie);
+		assertTrue(trie.getMemoryUsage() * 8 < DoubleArrayTrie.load(dictionary).getMemoryUsage());
+		TrieTestSupport.assertSameResults(TrieTestSupport.loadMTrieNode(), trie.getRootNode(), new FindByAutomaton());
+	}
+}
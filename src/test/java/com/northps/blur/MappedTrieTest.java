@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.DoubleArrayTrie;
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.MTrieNode;
+import com.northps.blur.impl.MappedTrie;
+
+public class MappedTrieTest {
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		DoubleArrayTrie trie = DoubleArrayTrie.load(TrieTestSupport.dictionary());
+		MTrieNode root = TrieTestSupport.loadMTrieNode();
+
+		File file = File.createTempFile("blur", ".trie");
+		file.deleteOnExit();
+		MappedTrie.write(trie.getRootNode(), file);
+		long start = System.nanoTime();
+		MappedTrie mapped = MappedTrie.open(file);
+		System.out.println(">>> " + mapped + " opened in " + (System.nanoTime() - start) / 1000 + "us");
+		assertEquals(trie.size(), mapped.size());
+
+		FindByLongest heuristic = new FindByLongest();
+		TrieTestSupport.assertSameResults(root, mapped.getRootNode(), heuristic);
+		TrieTestSupport.assertSameFuzzyResults(heuristic, root, mapped.getRootNode(), "recieve");
+		// recomputing the stored heuristics must not copy them off the mapping
+		assertFalse(mapped.isHeuristicCopied());
+
+		File fromMTrie = File.createTempFile("blur", ".trie");
+		fromMTrie.deleteOnExit();
+		MappedTrie.write(root, fromMTrie);
+		TrieTestSupport.assertSameCompletions(root, MappedTrie.open(fromMTrie).getRootNode(), "spel");
+	}
+
+	@Test
+	public void testWordFlags() throws Exception {
+		DoubleArrayTrie trie = DoubleArrayTrie.build(Arrays.asList("car", "cart", "cat"));
+		File file = File.createTempFile("blur", ".trie");
+		file.deleteOnExit();
+		MappedTrie.write(trie.getRootNode(), file);
+		MappedTrie mapped = MappedTrie.open(file);
+		assertTrue(mapped.isWord(mapped.walk(MappedTrie.ROOT, "car")));
+		assertFalse(mapped.isWord(mapped.walk(MappedTrie.ROOT, "ca")));
+		assertEquals(Arrays.asList("cart", "cat"), mapped.findByHeuristic("ca"));
+
+		mapped.setHeuristic(mapped.walk(MappedTrie.ROOT, "cat"), 9);
+		assertTrue(mapped.isHeuristicCopied());
+		assertEquals(Arrays.asList("cat"), mapped.findByHeuristic("ca", 1));
+	}
+
+	@Test
+	public void testRejectsOtherFiles() throws Exception {
+		File file = File.createTempFile("blur", ".trie");
+		file.deleteOnExit();
+		FileOutputStream os = new FileOutputStream(file);
+		os.write("not a trie file at all".getBytes("UTF-8"));
+		os.close();
+		try {
+			MappedTrie.open(file);
+			fail("expected an IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.FindByAutomaton;
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.MTrieNode;
+import com.northps.blur.impl.PatriciaTrieNode;
+
+public class PatriciaTrieNodeTest {
+
+	@Test
+	public void testCompression() throws Exception {
+		PatriciaTrieNode root = new PatriciaTrieNode();
+		root.attach("car");
+		root.attach("cart"); // lengthens the leaf
+		assertEquals(2, root.size());
+		root.attach("cat"); // splits "cart" into "ca", "rt" and "t"
+		root.attach("ca");
+		assertEquals(4, root.size());
+		assertEquals(Arrays.asList("cart", "cat"), root.findByHeuristic("c"));
+		assertEquals(Arrays.asList("cart"), root.findByHeuristic("car"));
+
+		// the uncompressed view has one node per character
+		TrieNode c = root.getChildren().get('c');
+		assertEquals(1, c.getDepth());
+		TrieNode a = c.getChildren().get('a');
+		assertEquals(2, a.getChildren().size());
+		assertEquals(4, a.getChildren().get('r').getChildren().get('t').getDepth());
+	}
+
+	@Test
+	public void testMatchesMTrieNode() throws Exception {
+		MTrieNode root = TrieTestSupport.loadMTrieNode();
+		PatriciaTrieNode patricia = new PatriciaTrieNode();
+		patricia.loadDictionary(TrieTestSupport.dictionary());
+		System.out.println(">>> Patricia nodes: " + patricia.size());
+		assertTrue(patricia.size() * 2 < count(root));
+
+		TrieTestSupport.assertSameResults(root, patricia, new FindByLongest(), new FindByAutomaton());
+		// a prefix ending inside a compressed edge
+		TrieTestSupport.assertSameCompletions(root, patricia, "abacu");
+	}
+
+	private static int count(TrieNode node) {
+		int count = 1;
+		for (TrieNode child : node.getChildren().values()) {
+			count += count(child);
+		}
+		return count;
+	}
+}
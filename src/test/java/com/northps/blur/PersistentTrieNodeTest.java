@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.FindByAutomaton;
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.MTrieNode;
+import com.northps.blur.impl.PersistentTrieNode;
+import com.northps.blur.impl.VersionedTrie;
+
+public class PersistentTrieNodeTest {
+	private static final String[] PREFIXES = {"a", "re", "spel", "qu", "zz"};
+
+	@Test
+	public void testSameAsMTrieNode() throws Exception {
+		PersistentTrieNode root = PersistentTrieNode.load(TrieTestSupport.dictionary());
+		MTrieNode expected = new MTrieNode();
+		expected.loadDictionary(TrieTestSupport.dictionary());
+		new FindByLongest().setTreeHeuristics(expected);
+
+		TrieTestSupport.assertSameTrie(expected, root);
+		for (String prefix : PREFIXES) {
+			assertEquals(prefix, new HashSet<String>(expected.findByHeuristic(prefix)),
+					new HashSet<String>(root.findByHeuristic(prefix)));
+		}
+		FindByAutomaton automaton = new FindByAutomaton();
+		assertEquals(new HashSet<String>(automaton.fuzzySearch(expected, "speling", 100000)),
+				new HashSet<String>(automaton.fuzzySearch(root, "speling", 100000)));
+	}
+
+	@Test
+	public void testBuildSameAsPlusAll() throws Exception {
+		List<String> words = new ArrayList<String>(new TreeSet<String>(TrieTestSupport.words()));
+		PersistentTrieNode expected = PersistentTrieNode.EMPTY.plusAll(words);
+		PersistentTrieNode built = PersistentTrieNode.build(TrieTestSupport.words());
+		TrieTestSupport.assertSameTrie(expected, built);
+		assertEquals(expected.getVersion(), built.getVersion());
+		assertEquals(0, PersistentTrieNode.build(Arrays.asList("a", "")).getChildren().size());
+		try {
+			built.setHeuristic(1);
+			fail("Heuristics of a persistent trie are fixed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testPathCopying() throws Exception {
+		PersistentTrieNode before = PersistentTrieNode.load(TrieTestSupport.dictionary());
+		PersistentTrieNode after = before.plus("spellbinderz");
+		assertEquals(before.getVersion() + 1, after.getVersion());
+		assertSame(before, before.plus("spell"));
+
+		// only the new path is new
+		Map<TrieNode, Boolean> old = new IdentityHashMap<TrieNode, Boolean>();
+		collect(before, old);
+		Map<TrieNode, Boolean> all = new IdentityHashMap<TrieNode, Boolean>();
+		collect(after, all);
+		int added = 0;
+		for (TrieNode node : all.keySet()) {
+			if (!old.containsKey(node)) {
+				added++;
+			}
+		}
+		assertEquals("spellbinderz".length() + 1, added);
+		System.out.println(">>> adding a word to " + old.size() + " nodes copied " + added);
+
+		assertTrue(after.findByHeuristic("spellbinder").contains("spellbinderz"));
+		assertFalse(before.findByHeuristic("spellbinder").contains("spellbinderz"));
+		assertTrue(after.getChild('s').getHeuristic() >= "spellbinderz".length());
+	}
+
+	@Test
+	public void testVersionedTrie() throws Exception {
+		final VersionedTrie trie = new VersionedTrie(PersistentTrieNode.load(TrieTestSupport.dictionary()));
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		List<Thread> readers = new ArrayList<Thread>();
+		for (int r = 0; r < 2; r++) {
+			readers.add(new Thread() {
+				public void run() {
+					int lastVersion = 0;
+					while (writing.get()) {
+						PersistentTrieNode root = trie.current();
+						List<String> first = root.findByHeuristic("zz");
+						if (root.getVersion() < lastVersion) {
+							failure.set("version went back to " + root.getVersion());
+						}
+						lastVersion = root.getVersion();
+						// a version does not change under its reader
+						if (!first.equals(root.findByHeuristic("zz"))) {
+							failure.set("version " + root.getVersion() + " changed");
+						}
+					}
+				}
+			});
+		}
+		for (Thread thread : readers) {
+			thread.start();
+		}
+		for (int i = 0; i < 1000; i++) {
+			trie.attach("zz" + Integer.toString(i, 26).replace('0', 'q'));
+		}
+		PersistentTrieNode base = trie.current();
+		assertTrue(trie.publish(base, base.plusAll(Arrays.asList("zzyzx", "zzyzxx"))));
+		assertFalse(trie.publish(base, base.plus("zzz")));
+		writing.set(false);
+		for (Thread thread : readers) {
+			thread.join();
+		}
+		assertEquals(null, failure.get());
+		assertTrue(trie.current().findByHeuristic("zzyz").contains("zzyzxx"));
+
+		PersistentTrieNode reloaded = trie.reload(TrieTestSupport.dictionary());
+		assertSame(reloaded, trie.current());
+		assertFalse(reloaded.findByHeuristic("zzyz").contains("zzyzxx"));
+	}
+
+	private static void collect(TrieNode node, Map<TrieNode, Boolean> nodes) {
+		nodes.put(node, Boolean.TRUE);
+		for (TrieNode child : node.getChildren().values()) {
+			collect(child, nodes);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.FindByLongest;
+import com.northps.blur.impl.SymbolTable;
+import com.northps.blur.impl.SymbolTrieNode;
+
+public class SymbolTrieNodeTest {
+
+	@Test
+	public void testSymbols() {
+		SymbolTable symbols = new SymbolTable();
+		assertEquals(0, symbols.idOf('a'));
+		assertEquals(Fuzzy.ALPHABET.length, symbols.size());
+		assertEquals(SymbolTable.NONE, symbols.idOf('\u00e9'));
+
+		// past the alphabet, and past the 64 symbols of the low bitmap
+		SymbolTrieNode root = new SymbolTrieNode(symbols);
+		List<String> words = new ArrayList<String>();
+		for (char c = '\u00c0'; c < '\u00c0' + 40; c++) {
+			words.add("x" + c);
+			words.add("x" + (char) (c + 0x400));
+		}
+		for (String word : words) {
+			root.attach(word);
+		}
+		assertEquals(Fuzzy.ALPHABET.length + 80, symbols.size());
+		SymbolTrieNode x = root.getChild('x');
+		assertEquals(80, x.getChildren().size());
+		for (String word : words) {
+			assertSame(x.getChildren().get(word.charAt(1)), x.getChild(word.charAt(1)));
+		}
+		assertNull(x.getChild('q'));
+		assertEquals(new HashSet<String>(words), new HashSet<String>(root.findByHeuristic("x")));
+	}
+
+	@Test
+	public void testMatchesMTrieNode() throws Exception {
+		SymbolTrieNode symbols = new SymbolTrieNode();
+		symbols.loadDictionary(TrieTestSupport.dictionary());
+		TrieTestSupport.assertSameResults(TrieTestSupport.loadMTrieNode(), symbols, new FindByLongest());
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.FindBySymmetricDelete;
+import com.northps.blur.impl.MTrieNode;
+
+public class SymmetricDeleteIndexTest {
+
+	@Test
+	public void testLookupMatchesBruteForce() throws Exception {
+		MTrieNode root = new MTrieNode();
+		SymmetricDeleteIndex index = new SymmetricDeleteIndex(2, 7);
+		root.setDeleteIndex(index);
+
+		root.loadDictionary(TrieTestSupport.dictionary());
+		System.out.println(">>> " + index);
+
+		Set<String> words = new HashSet<String>();
+		for (String word : TrieTestSupport.words()) {
+			words.add(word.trim());
+		}
+		assertEquals(words.size(), index.getWordCount());
+
+		String[] queries = {"hap", "speling", "wrold", "acommodation", "xq"};
+		for (String query : queries) {
+			Set<String> expected = new HashSet<String>();
+			for (String word : words) {
+				if (word.length() > 0 && Fuzzy.getLevenshteinDistance(query, word) <= 2) {
+					expected.add(word);
+				}
+			}
+			Set<String> actual = new HashSet<String>();
+			for (Word word : index.lookup(query)) {
+				assertEquals(Fuzzy.getLevenshteinDistance(query, word.getValue()), word.getDistance());
+				actual.add(word.getValue());
+			}
+			assertEquals(query, expected, actual);
+		}
+
+		Heuristic func = new FindBySymmetricDelete(index);
+		List<String> results = func.fuzzySearch(root, "speling", 5);
+		assertTrue(results.contains("spelling"));
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import java.io.File;
+
+import com.northps.blur.impl.DoubleArrayTrie;
+import com.northps.blur.impl.MappedTrie;
+import com.northps.blur.impl.TrieLayout;
+
+/**
+ * Top 10 completion on a MappedTrie of dict.txt written in each TrieLayout.
+ */
+public class TrieLayoutBenchmark {
+	private static final String[] PREFIXES = {"a", "re", "spel", "qu", "zz", "con", "th"};
+
+	public static void main(String[] args) throws Exception {
+		DoubleArrayTrie trie = DoubleArrayTrie.load(TrieTestSupport.dictionary());
+		TrieLayout[] layouts = TrieLayout.values();
+		String[] names = new String[layouts.length];
+		Runnable[] tasks = new Runnable[layouts.length];
+		for (int i = 0; i < layouts.length; i++) {
+			File file = File.createTempFile("blur", ".trie");
+			file.deleteOnExit();
+			MappedTrie.write(trie.getRootNode(), file, layouts[i]);
+			final MappedTrie mapped = MappedTrie.open(file);
+			names[i] = layouts[i].toString();
+			tasks[i] = new Runnable() {
+				public void run() {
+					for (int n = 0; n < 500; n++) {
+						for (String prefix : PREFIXES) {
+							Benchmark.sink += mapped.findByHeuristic(prefix, 10).size();
+						}
+					}
+				}
+			};
+		}
+		Benchmark.run(500 * PREFIXES.length + " top 10 completions", names, tasks);
+	}
+}
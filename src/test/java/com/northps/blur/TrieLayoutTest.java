@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.DoubleArrayTrie;
+import com.northps.blur.impl.MappedTrie;
+import com.northps.blur.impl.TrieLayout;
+
+public class TrieLayoutTest {
+
+	@Test
+	public void testOrderIsPermutation() {
+		// root with children 1, 2; node 1 with children 3, 4; node 2 with child 5
+		int[] firstChild = {1, 3, 5, 0, 0, 0};
+		int[] childCount = {2, 2, 1, 0, 0, 0};
+		int[] heuristics = {3, 2, 3, 2, 2, 3};
+		for (TrieLayout layout : TrieLayout.values()) {
+			int[] order = layout.order(firstChild, childCount, heuristics);
+			assertEquals(layout.toString(), 6, order.length);
+			assertEquals(layout.toString(), 0, order[0]);
+			boolean[] seen = new boolean[6];
+			for (int node : order) {
+				seen[node] = true;
+			}
+			for (boolean s : seen) {
+				assertTrue(layout.toString(), s);
+			}
+		}
+		// the better child's block follows the root's
+		int[] order = TrieLayout.HEURISTIC_DEPTH_FIRST.order(firstChild, childCount, heuristics);
+		assertEquals(5, order[3]);
+	}
+
+	@Test
+	public void testMappedLayouts() throws Exception {
+		DoubleArrayTrie trie = DoubleArrayTrie.load(TrieTestSupport.dictionary());
+		String[] prefixes = {"a", "re", "spel", "qu", "zz", "con", "th"};
+
+		for (TrieLayout layout : TrieLayout.values()) {
+			File file = File.createTempFile("blur", ".trie");
+			file.deleteOnExit();
+			MappedTrie.write(trie.getRootNode(), file, layout);
+			MappedTrie mapped = MappedTrie.open(file);
+			assertEquals(layout, mapped.getLayout());
+			assertEquals(trie.size(), mapped.size());
+			assertEquals(MappedTrie.NONE, mapped.getParent(MappedTrie.ROOT));
+			for (String prefix : prefixes) {
+				assertEquals(layout + " " + prefix, new HashSet<String>(trie.findByHeuristic(prefix)),
+						new HashSet<String>(mapped.findByHeuristic(prefix)));
+			}
+			int node = mapped.walk(MappedTrie.ROOT, "spel");
+			assertEquals("spel", mapped.getPrefix(node));
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+
+import com.northps.blur.impl.MTrieNode;
+import com.northps.blur.util.DictionaryReader;
+
+/**
+ * The test dictionary and checks shared by the trie tests.
+ */
+public final class TrieTestSupport {
+	// Prefixes whose completions the tries are compared on, from thousands of results to none.
+	public static final String[] PREFIXES = {"a", "re", "spel", "qu", "zz", "th"};
+
+	private TrieTestSupport() {
+	}
+
+	// src/test/resources/dict.txt
+	public static File dictionary() throws Exception {
+		return new File(TrieTestSupport.class.getClassLoader().getResource("dict.txt").toURI());
+	}
+
+	// Every line of the dictionary lowercased, in file order, as loadDictionary attaches them.
+	public static List<String> words() throws Exception {
+		return DictionaryReader.readWords(dictionary());
+	}
+
+	// The dictionary in an MTrieNode, which the other tries are checked against.
+	public static MTrieNode loadMTrieNode() throws Exception {
+		MTrieNode root = new MTrieNode();
+		root.loadDictionary(dictionary());
+		return root;
+	}
+
+	// Same children and, below the root, the same heuristics at every node.
+	public static void assertSameTrie(TrieNode expected, TrieNode actual) {
+		assertEquals(expected.getChildren().keySet(), actual.getChildren().keySet());
+		if (!expected.isRoot()) {
+			assertEquals(expected.getHeuristic(), actual.getHeuristic());
+		}
+		for (Character c : expected.getChildren().keySet()) {
+			assertSameTrie(expected.getChildren().get(c), actual.getChildren().get(c));
+		}
+	}
+
+	// Same PREFIXES completions, and the same fuzzy results for "speling" with each heuristic.
+	public static void assertSameResults(TrieNode expected, TrieNode actual, Heuristic... heuristics) throws Exception {
+		assertSameCompletions(expected, actual, PREFIXES);
+		for (Heuristic heuristic : heuristics) {
+			assertSameFuzzyResults(heuristic, expected, actual, "speling");
+		}
+	}
+
+	// Completions are compared as sets, since words with equal heuristics may come in any order.
+	public static void assertSameCompletions(TrieNode expected, TrieNode actual, String... prefixes) {
+		for (String prefix : prefixes) {
+			assertEquals(prefix, new HashSet<String>(expected.findByHeuristic(prefix)),
+					new HashSet<String>(actual.findByHeuristic(prefix)));
+		}
+	}
+
+	public static void assertSameFuzzyResults(Heuristic heuristic, TrieNode expected, TrieNode actual,
+			String... queries) throws Exception {
+		for (String query : queries) {
+			assertEquals(query, new HashSet<String>(heuristic.fuzzySearch(expected, query, 100000)),
+					new HashSet<String>(heuristic.fuzzySearch(actual, query, 100000)));
+		}
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2012 Mike Patterson and In Koo
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights 
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE
+ * OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package com.northps.blur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.northps.blur.impl.MTrieNode;
+import com.northps.blur.impl.Utf8Trie;
+
+public class Utf8TrieTest {
+	private static final String[] WORDS = {
+		"stra\u00dfe", "strasse", // German
+		"\u0441\u0442\u0440\u0430\u043d\u0430", "\u0441\u0442\u0440\u0430\u043d\u043d\u044b\u0439", // Russian
+		"\u6771\u4eac", "\u6771\u4eac\u90fd", // Japanese
+		"a\ud835\udc9cc", // a, U+1D49C, c
+		"\ud83d\ude00\ud83d\ude03", // two emoji
+	};
+
+	private Utf8Trie multilingual() {
+		Utf8Trie trie = new Utf8Trie();
+		for (String word : WORDS) {
+			trie.attach(word);
+		}
+		return trie;
+	}
+
+	@Test
+	public void testMultilingual() {
+		Utf8Trie trie = multilingual();
+		assertEquals(WORDS.length, trie.getWordCount());
+		for (String word : WORDS) {
+			assertTrue(word, trie.contains(word));
+		}
+		// a single supplementary character is two chars but one code point, so it is skipped
+		trie.attach("\ud83d\ude00");
+		assertFalse(trie.contains("\ud83d\ude00"));
+
+		assertEquals(2, trie.findByHeuristic("\u0441\u0442\u0440").size());
+		assertEquals("\u0441\u0442\u0440\u0430\u043d\u043d\u044b\u0439", trie.findByHeuristic("\u0441\u0442\u0440", 1).get(0));
+		// a word that is a prefix of another one is still a result
+		assertEquals(new HashSet<String>(java.util.Arrays.asList("\u6771\u4eac\u90fd", "\u6771\u4eac")),
+				new HashSet<String>(trie.findByHeuristic("\u6771")));
+		assertEquals(3, trie.getHeuristic(trie.walk(Utf8Trie.ROOT, "a")));
+		assertEquals(3, trie.getLength(trie.walk(Utf8Trie.ROOT, "a\ud835\udc9cc")));
+
+		for (int node = 0; node < trie.size(); node++) {
+			assertTrue(trie.getChildCount(node) <= 256);
+		}
+	}
+
+	@Test
+	public void testCodePointDistance() {
+		Utf8Trie trie = multilingual();
+		// one substitution of a supplementary character, two chars in UTF-16
+		List<Word> found = trie.fuzzySearch("abc", 1);
+		assertEquals(1, found.size());
+		assertEquals("a\ud835\udc9cc", found.get(0).getValue());
+		assertEquals(1, found.get(0).getDistance());
+
+		found = trie.fuzzySearch("\u0421\u0422\u0420\u0410\u041d\u041d\u0410", 1);
+		assertEquals(1, found.size());
+		assertEquals("\u0441\u0442\u0440\u0430\u043d\u0430", found.get(0).getValue());
+
+		found = trie.fuzzySearch("\ud83d\ude03\ud83d\ude00", 1, true);
+		assertEquals(1, found.size());
+		assertEquals(1, found.get(0).getDistance());
+		assertEquals(0, trie.fuzzySearch("\ud83d\ude03\ud83d\ude00", 1, false).size());
+	}
+
+	@Test
+	public void testLocaleIndependent() {
+		Locale saved = Locale.getDefault();
+		try {
+			Locale.setDefault(new Locale("tr", "TR"));
+			Utf8Trie trie = new Utf8Trie();
+			trie.attach(Utf8Trie.normalize("TITLE"));
+			assertTrue(trie.contains("title"));
+			assertEquals(1, trie.fuzzySearch("TITLE", 0).size());
+		} finally {
+			Locale.setDefault(saved);
+		}
+	}
+
+	@Test
+	public void testDictionary() throws Exception {
+		File dictionary = TrieTestSupport.dictionary();
+		Utf8Trie trie = Utf8Trie.load(dictionary);
+		MTrieNode root = new MTrieNode();
+		root.loadDictionary(dictionary);
+
+		Set<String> words = new HashSet<String>();
+		BufferedReader is = new BufferedReader(new FileReader(dictionary));
+		try {
+			String line = null;
+			while ((line = is.readLine()) != null) {
+				if (line.length() > 1) {
+					words.add(Utf8Trie.normalize(line));
+				}
+			}
+		} finally {
+			is.close();
+		}
+		assertEquals(words.size(), trie.getWordCount());
+
+		String[] prefixes = {"a", "re", "spel", "qu", "zz"};
+		for (String prefix : prefixes) {
+			List<String> results = trie.findByHeuristic(prefix);
+			Set<String> expected = new HashSet<String>();
+			for (String word : words) {
+				if (word.startsWith(prefix)) {
+					expected.add(word);
+				}
+			}
+			assertEquals(prefix, expected, new HashSet<String>(results));
+			for (int i = 1; i < results.size(); i++) {
+				assertTrue(prefix, results.get(i - 1).length() >= results.get(i).length());
+			}
+			// the leaves MTrieNode reports are among them
+			assertTrue(prefix, results.containsAll(root.findByHeuristic(prefix)));
+		}
+
+		String[] queries = {"speling", "recieve", "teh"};
+		for (String query : queries) {
+			for (int distance = 1; distance <= 2; distance++) {
+				Map<String, Integer> expected = new HashMap<String, Integer>();
+				for (String word : words) {
+					int d = distance(query, word);
+					if (d <= distance) {
+						expected.put(word, d);
+					}
+				}
+				Map<String, Integer> actual = new HashMap<String, Integer>();
+				for (Word word : trie.fuzzySearch(query, distance)) {
+					actual.put(word.getValue(), word.getDistance());
+				}
+				assertEquals(query, expected, actual);
+			}
+		}
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 100; i++) {
+			trie.fuzzySearch("speling", 2);
+		}
+		System.out.println(">>> " + trie + " in " + trie.getMemoryUsage() / 1024 + "KB, 100 searches at distance 2 in "
+				+ (System.currentTimeMillis() - start) + "ms");
+	}
+
+	private static int distance(String a, String b) {
+		List<Integer> x = codePoints(a);
+		List<Integer> y = codePoints(b);
+		int[][] d = new int[x.size() + 1][y.size() + 1];
+		for (int i = 0; i <= x.size(); i++) {
+			for (int j = 0; j <= y.size(); j++) {
+				if (i == 0 || j == 0) {
+					d[i][j] = i + j;
+				} else {
+					d[i][j] = Math.min(Math.min(d[i - 1][j], d[i][j - 1]) + 1,
+							d[i - 1][j - 1] + (x.get(i - 1).equals(y.get(j - 1)) ? 0 : 1));
+				}
+			}
+		}
+		return d[x.size()][y.size()];
+	}
+
+	private static List<Integer> codePoints(String s) {
+		List<Integer> result = new ArrayList<Integer>();
+		for (int i = 0; i < s.length(); i += Character.charCount(s.codePointAt(i))) {
+			result.add(s.codePointAt(i));
+		}
+		return result;
+	}
+}